@@ -0,0 +1,105 @@
+package com.org.service;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import com.org.model.Attendance;
+import com.org.repository.AttendanceRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Attendance marking against an in-memory H2 database. Only the persistence layer behind
+ * {@link AttendanceService} is started (datasource, JPA, transactions and the write-behind queue), not the
+ * web server or OpenCV. {@code writeBehind=false} measures the synchronous insert, {@code true} the
+ * enqueue cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AttendanceBenchmark {
+
+    @Param({ "false", "true" })
+    public boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private AttendanceService attendanceService;
+    private final AtomicInteger nextUserId = new AtomicInteger(1000);
+
+    @Setup
+    public void setup() throws IOException {
+        Path dir = Files.createTempDirectory("bench_attendance");
+        context = new SpringApplicationBuilder(PersistenceOnly.class).web(WebApplicationType.NONE).run(
+                "--debug=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:bench_" + writeBehind,
+                "--face.attendance.spill-file=" + dir.resolve("spill.csv"),
+                "--face.attendance.write-behind=" + writeBehind);
+        attendanceService = context.getBean(AttendanceService.class);
+        attendanceService.markIfAbsent(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean markNewUser() {
+        return attendanceService.markIfAbsent(nextUserId.incrementAndGet());
+    }
+
+    @Benchmark
+    public boolean markAlreadyPresentUser() {
+        return attendanceService.markIfAbsent(1);
+    }
+
+    @Benchmark
+    public int markGroupOfTwenty() {
+        List<Integer> userIds = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            userIds.add(nextUserId.incrementAndGet());
+        }
+        return attendanceService.markAll(userIds).size();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({ DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+            HibernateJpaAutoConfiguration.class, JdbcTemplateAutoConfiguration.class,
+            TransactionAutoConfiguration.class })
+    @EntityScan(basePackageClasses = Attendance.class)
+    @EnableJpaRepositories(basePackageClasses = AttendanceRepository.class)
+    @ComponentScan(basePackageClasses = AttendanceService.class, useDefaultFilters = false,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+                    AttendanceService.class, AttendanceDayCache.class, AttendanceWriter.class, FaceMetrics.class }))
+    static class PersistenceOnly {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_face.*;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Synthetic inputs for the benchmarks so they run offline: drawn face-like frames for detection and a
+ * generated gallery of per-user textures for LBPH training and prediction.
+ */
+final class BenchmarkFixtures {
+
+    static final int FACE_SIZE = 160;
+
+    private BenchmarkFixtures() {
+    }
+
+    static File cascadeFile() throws IOException {
+        File file = Files.createTempFile("bench_", "haarcascade_frontalface_alt.xml").toFile();
+        file.deleteOnExit();
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/haarcascade_frontalface_alt.xml")) {
+            Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+
+    /** A noisy gray frame with a few cartoon faces drawn in, so the cascade has real work to do. */
+    static Mat frame(int width, int height, long seed) {
+        Random random = new Random(seed);
+        Mat frame = new Mat(height, width, CV_8UC1);
+        fillNoise(frame, random, 90, 60);
+
+        int faces = 3;
+        for (int i = 0; i < faces; i++) {
+            int size = Math.max(40, height / 4);
+            int cx = (i + 1) * width / (faces + 1);
+            int cy = height / 2;
+            ellipse(frame, new Point(cx, cy), new Size(size / 2, size * 2 / 3), 0, 0, 360, new Scalar(200.0), -1,
+                    LINE_8, 0);
+            circle(frame, new Point(cx - size / 5, cy - size / 6), size / 12, new Scalar(30.0), -1, LINE_8, 0);
+            circle(frame, new Point(cx + size / 5, cy - size / 6), size / 12, new Scalar(30.0), -1, LINE_8, 0);
+            ellipse(frame, new Point(cx, cy + size / 4), new Size(size / 5, size / 14), 0, 0, 360, new Scalar(60.0),
+                    -1, LINE_8, 0);
+        }
+        return frame;
+    }
+
+    /** One {@link #FACE_SIZE} sample of the given user: a per-user texture plus per-sample noise. */
+    static Mat face(int userId, long sampleSeed) {
+        Mat face = new Mat(FACE_SIZE, FACE_SIZE, CV_8UC1);
+        ByteBuffer pixels = face.createBuffer();
+        Random base = new Random(userId * 7919L);
+        Random noise = new Random(sampleSeed);
+        for (int i = 0; i < FACE_SIZE * FACE_SIZE; i++) {
+            int value = base.nextInt(256) + noise.nextInt(21) - 10;
+            pixels.put(i, (byte) Math.max(0, Math.min(255, value)));
+        }
+        return face;
+    }
+
+    /** Trains an OpenCV LBPH recognizer on {@code samples} generated faces spread over {@code users} labels. */
+    static LBPHFaceRecognizer trainGallery(int samples, int users) {
+        MatVector images = new MatVector(samples);
+        Mat labels = new Mat(samples, 1, CV_32SC1);
+        IntBuffer labelsBuf = labels.createBuffer();
+        for (int i = 0; i < samples; i++) {
+            int userId = i % users + 1;
+            images.put(i, face(userId, i));
+            labelsBuf.put(i, userId);
+        }
+        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
+        recognizer.train(images, labels);
+        return recognizer;
+    }
+
+    private static void fillNoise(Mat mat, Random random, int mean, int spread) {
+        ByteBuffer pixels = mat.createBuffer();
+        int total = (int) mat.total();
+        for (int i = 0; i < total; i++) {
+            pixels.put(i, (byte) (mean + random.nextInt(spread)));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link CascadeClassifier#detectMultiScale} with default parameters at common camera resolutions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DetectionBenchmark {
+
+    @Param({ "320x240", "640x480", "1280x720", "1920x1080" })
+    public String resolution;
+
+    private CascadeClassifier detector;
+    private Mat frame;
+    private RectVector faces;
+
+    @Setup
+    public void setup() throws IOException {
+        String[] dims = resolution.split("x");
+        detector = new CascadeClassifier(BenchmarkFixtures.cascadeFile().getAbsolutePath());
+        frame = BenchmarkFixtures.frame(Integer.parseInt(dims[0]), Integer.parseInt(dims[1]), 42);
+        faces = new RectVector();
+    }
+
+    @Benchmark
+    public long detectMultiScale() {
+        detector.detectMultiScale(frame, faces);
+        return faces.size();
+    }
+}
@@ -0,0 +1,54 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_face.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model load time: OpenCV XML via {@code recognizer.read} versus the memory-mapped binary format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModelLoadBenchmark {
+
+    @Param({ "20", "200", "1000" })
+    public int gallerySize;
+
+    private File xmlFile;
+    private File binFile;
+
+    @Setup
+    public void setup() throws IOException {
+        File dir = Files.createTempDirectory("bench_models").toFile();
+        xmlFile = new File(dir, "lbph_model.xml");
+        binFile = new File(dir, "lbph_model.bin");
+
+        LBPHFaceRecognizer recognizer = BenchmarkFixtures.trainGallery(gallerySize, 10);
+        recognizer.save(xmlFile.getAbsolutePath());
+        LbphModelFile.write(LbphModel.fromRecognizer(recognizer), binFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        xmlFile.delete();
+        binFile.delete();
+        xmlFile.getParentFile().delete();
+    }
+
+    @Benchmark
+    public LBPHFaceRecognizer readXml() {
+        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
+        recognizer.read(xmlFile.getAbsolutePath());
+        return recognizer;
+    }
+
+    @Benchmark
+    public LbphModel readBinary() throws IOException {
+        return LbphModelFile.read(binFile);
+    }
+}
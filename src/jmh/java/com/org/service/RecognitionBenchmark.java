@@ -0,0 +1,97 @@
+package com.org.service;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_face.*;
+import org.openjdk.jmh.annotations.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.resize;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-face recognition path: crop and resize from a camera frame, then predict. Compares OpenCV's own
+ * LBPH predict with the shared {@link LbphModel}/{@link HistogramIndex} path served by the recognizer pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecognitionBenchmark {
+
+    @Param({ "100", "1000", "4000" })
+    public int gallerySize;
+
+    private LBPHFaceRecognizer opencvRecognizer;
+    private LbphModel model;
+    private LBPHFaceRecognizer extractor;
+    private Mat frame;
+    private Rect faceRect;
+    private Mat probe;
+    private Mat crop;
+    private float[] probeHistogram;
+    private final int[] label = new int[1];
+    private final double[] confidence = new double[1];
+
+    @Setup
+    public void setup() {
+        opencvRecognizer = BenchmarkFixtures.trainGallery(gallerySize, 50);
+        model = LbphModel.fromRecognizer(opencvRecognizer);
+        extractor = model.newHistogramExtractor();
+
+        // Paste a known user's face into a 640x480 frame so the crop path has something real to cut out.
+        frame = BenchmarkFixtures.frame(640, 480, 7);
+        faceRect = new Rect(240, 160, 140, 140);
+        probe = BenchmarkFixtures.face(3, -1);
+        try (Mat target = new Mat(frame, faceRect)) {
+            resize(probe, target, faceRect.size());
+        }
+        probeHistogram = LbphModel.histogramOf(extractor, probe);
+        // Reused across invocations so the crop benchmarks measure the work, not native allocation.
+        crop = new Mat();
+    }
+
+    @TearDown
+    public void tearDown() {
+        crop.close();
+        probe.close();
+        faceRect.close();
+        frame.close();
+        extractor.close();
+        opencvRecognizer.close();
+    }
+
+    @Benchmark
+    public Mat cropAndResize() {
+        return FaceService.cropFace(frame, faceRect, crop);
+    }
+
+    @Benchmark
+    public int opencvPredict() {
+        opencvRecognizer.predict(probe, label, confidence);
+        return label[0];
+    }
+
+    @Benchmark
+    public int histogramAndIndexPredict() {
+        // The histogram read-back allocates native headers; release them every invocation.
+        try (PointerScope scope = new PointerScope()) {
+            model.predict(LbphModel.histogramOf(extractor, probe), label, confidence);
+        }
+        return label[0];
+    }
+
+    @Benchmark
+    public int cropResizeAndPredict() {
+        try (PointerScope scope = new PointerScope()) {
+            Mat face = FaceService.cropFace(frame, faceRect, crop);
+            model.predict(LbphModel.histogramOf(extractor, face), label, confidence);
+        }
+        return label[0];
+    }
+
+    @Benchmark
+    public List<HistogramIndex.Match> indexTopFive() {
+        return model.topK(probeHistogram, 5);
+    }
+}
@@ -0,0 +1,48 @@
+package com.org.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Collects every latency sample of a run and reports exact percentiles at the end. */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 14];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == samples.length)
+            samples = Arrays.copyOf(samples, count * 2);
+        samples[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /** p50/p90/p99/p99.9/max and mean, in milliseconds. */
+    synchronized Map<String, Double> summary() {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        Map<String, Double> summary = new LinkedHashMap<>();
+        summary.put("mean", count == 0 ? 0 : millis((long) Arrays.stream(sorted).average().orElse(0)));
+        summary.put("p50", percentile(sorted, 50));
+        summary.put("p90", percentile(sorted, 90));
+        summary.put("p99", percentile(sorted, 99));
+        summary.put("p99.9", percentile(sorted, 99.9));
+        summary.put("max", count == 0 ? 0 : millis(sorted[count - 1]));
+        return summary;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return millis(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
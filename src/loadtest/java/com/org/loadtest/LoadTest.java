@@ -0,0 +1,310 @@
+package com.org.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.org.FaceAttendanceSystemApplication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end load test that runs entirely offline: generates a synthetic gallery, starts the application
+ * in-process against in-memory H2, trains through {@code /api/face/train}, then drives
+ * {@code /api/face/mark-attendance-from-image} and reports throughput, latency percentiles, error and shed
+ * rates and recognition accuracy. Run through the {@code loadtest} Maven profile:
+ *
+ * <pre>
+ *   ./mvnw -Ploadtest test-compile exec:exec -Dloadtest.args="--concurrency=16 --duration=60"
+ * </pre>
+ *
+ * Options ({@code --name=value}): users, samples, probes, impostors (fraction of probes from users that were
+ * never enrolled), concurrency (closed loop), rate (requests per second; switches to an open loop where
+ * latency is measured from the scheduled start), warmup and duration (seconds), trainRuns, output. Any
+ * {@code --face.*}, {@code --spring.*} or {@code --server.*} option is passed to the application.
+ */
+public class LoadTest {
+
+    private static final Pattern USER_ID = Pattern.compile("ID: (\\d+)");
+    private static final String BOUNDARY = "loadtest-boundary-7d1c";
+
+    private record Probe(int expectedUserId, byte[] body) {
+    }
+
+    private static final class Outcomes {
+        final LongAdder ok = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder correct = new LongAdder();
+        final LongAdder falseAccepts = new LongAdder();
+        final LongAdder falseRejects = new LongAdder();
+        final LongAdder noFace = new LongAdder();
+    }
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private String baseUrl;
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTest(options).run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        int users = intOption("users", 20);
+        int samples = intOption("samples", 10);
+        Path work = Files.createTempDirectory("facepresence_loadtest");
+        File gallery = work.resolve("training").toFile();
+
+        long galleryStart = System.nanoTime();
+        SyntheticFaces.writeGallery(gallery, users, samples);
+        System.out.printf("Generated %d users x %d samples in %s (%d ms)%n", users, samples, gallery,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - galleryStart));
+
+        try (ConfigurableApplicationContext context = startApplication(work, gallery)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api/face";
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("config", options);
+            report.put("users", users);
+            report.put("samplesPerUser", samples);
+            report.put("train", train(intOption("trainRuns", 1)));
+
+            List<Probe> probes = probes(users);
+            int warmup = intOption("warmup", 5);
+            if (warmup > 0) {
+                System.out.println("Warming up for " + warmup + " s");
+                drive(probes, warmup, new LatencyRecorder(), new Outcomes());
+            }
+            report.put("recognition", recognition(probes));
+
+            System.out.println(mapper.writeValueAsString(report));
+            File output = new File(options.getOrDefault("output", "target/loadtest-result.json"));
+            if (output.getParentFile() != null)
+                Files.createDirectories(output.getParentFile().toPath());
+            mapper.writeValue(output, report);
+            System.out.println("Report written to " + output.getAbsolutePath());
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication(Path work, File gallery) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--debug=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                "--face.training.dir=" + gallery.getAbsolutePath(),
+                "--face.model.path=" + work.resolve("model").resolve("lbph_model.bin"),
+                "--face.attendance.spill-file=" + work.resolve("spill.csv"),
+                "--face.menu.dir=" + work.resolve("menu")));
+        options.forEach((name, value) -> {
+            if (name.startsWith("face.") || name.startsWith("spring.") || name.startsWith("server."))
+                args.add("--" + name + "=" + value);
+        });
+        return new SpringApplication(FaceAttendanceSystemApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /** Runs full trainings through the job API and reports how long each took end to end. */
+    private Map<String, Object> train(int runs) throws Exception {
+        LatencyRecorder latencies = new LatencyRecorder();
+        JsonNode lastReport = null;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            JsonNode job = getJson("/train");
+            String jobId = job.get("jobId").asText();
+            while (true) {
+                job = getJson("/train/jobs/" + jobId);
+                String status = job.get("status").asText();
+                if (!status.equals("queued") && !status.equals("running"))
+                    break;
+                Thread.sleep(100);
+            }
+            if (!job.get("status").asText().equals("succeeded"))
+                throw new IllegalStateException("Training failed: " + job);
+            latencies.record(System.nanoTime() - start);
+            lastReport = job.get("report");
+            System.out.println("Training run " + (i + 1) + ": " + lastReport);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runs", runs);
+        result.put("latencyMillis", latencies.summary());
+        result.put("lastReport", lastReport);
+        return result;
+    }
+
+    private List<Probe> probes(int users) throws IOException {
+        int count = intOption("probes", 200);
+        double impostors = doubleOption("impostors", 0.1);
+        Random random = new Random(42);
+        List<Probe> probes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean impostor = random.nextDouble() < impostors;
+            int userId = impostor ? users + 1 + random.nextInt(users) : 1 + random.nextInt(users);
+            probes.add(new Probe(impostor ? -1 : userId, multipart(SyntheticFaces.probe(userId, i))));
+        }
+        return probes;
+    }
+
+    private Map<String, Object> recognition(List<Probe> probes) throws InterruptedException {
+        int duration = intOption("duration", 30);
+        LatencyRecorder latencies = new LatencyRecorder();
+        Outcomes outcomes = new Outcomes();
+        System.out.println("Measuring for " + duration + " s");
+        long start = System.nanoTime();
+        drive(probes, duration, latencies, outcomes);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = outcomes.ok.sum() + outcomes.shed.sum() + outcomes.errors.sum();
+        long answered = outcomes.ok.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoint", "/api/face/mark-attendance-from-image");
+        result.put("mode", doubleOption("rate", 0) > 0 ? "open, " + doubleOption("rate", 0) + " req/s"
+                : "closed, " + intOption("concurrency", 8) + " clients");
+        result.put("requests", total);
+        result.put("throughputPerSecond", answered / seconds);
+        result.put("latencyMillis", latencies.summary());
+        result.put("errorRate", ratio(outcomes.errors.sum(), total));
+        result.put("shedRate", ratio(outcomes.shed.sum(), total));
+        result.put("accuracy", ratio(outcomes.correct.sum(), answered));
+        result.put("falseAcceptRate", ratio(outcomes.falseAccepts.sum(), answered));
+        result.put("falseRejectRate", ratio(outcomes.falseRejects.sum(), answered));
+        result.put("noFaceOrUnrecognized", outcomes.noFace.sum());
+        return result;
+    }
+
+    /** Closed loop with a fixed number of clients, or an open loop at a fixed arrival rate. */
+    private void drive(List<Probe> probes, int seconds, LatencyRecorder latencies, Outcomes outcomes)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong next = new AtomicLong();
+        double rate = doubleOption("rate", 0);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (rate > 0) {
+                long interval = (long) (1e9 / rate);
+                for (long scheduled = System.nanoTime(); scheduled < deadline; scheduled += interval) {
+                    LockSupport.parkNanos(scheduled - System.nanoTime());
+                    long intendedStart = scheduled;
+                    Probe probe = probes.get((int) (next.getAndIncrement() % probes.size()));
+                    clients.execute(() -> send(probe, intendedStart, latencies, outcomes));
+                }
+            } else {
+                for (int c = 0; c < intOption("concurrency", 8); c++) {
+                    clients.execute(() -> {
+                        while (System.nanoTime() < deadline) {
+                            Probe probe = probes.get((int) (next.getAndIncrement() % probes.size()));
+                            send(probe, System.nanoTime(), latencies, outcomes);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void send(Probe probe, long start, LatencyRecorder latencies, Outcomes outcomes) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/mark-attendance-from-image"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(probe.body()))
+                .build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException | InterruptedException e) {
+            outcomes.errors.increment();
+            return;
+        }
+        latencies.record(System.nanoTime() - start);
+
+        if (response.statusCode() == 429) {
+            outcomes.shed.increment();
+            return;
+        }
+        String body = response.body();
+        if (response.statusCode() != 200 || body.startsWith("Error") || body.startsWith("Model not found")) {
+            outcomes.errors.increment();
+            return;
+        }
+
+        outcomes.ok.increment();
+        Matcher matcher = USER_ID.matcher(body);
+        int recognized = matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+        if (recognized == probe.expectedUserId()) {
+            outcomes.correct.increment();
+        } else if (recognized == -1) {
+            outcomes.falseRejects.increment();
+            outcomes.noFace.increment();
+        } else {
+            outcomes.falseAccepts.increment();
+        }
+    }
+
+    private JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300)
+            throw new IOException(path + " returned " + response.statusCode() + ": " + response.body());
+        return mapper.readTree(response.body());
+    }
+
+    private static byte[] multipart(byte[] image) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 256);
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"probe.jpg\"\r\n"
+                + "Content-Type: image/jpeg\r\n\r\n";
+        body.writeBytes(head.getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(image);
+        body.writeBytes(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        return body.toByteArray();
+    }
+
+    private static double ratio(long part, long total) {
+        return total == 0 ? 0 : (double) part / total;
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private double doubleOption(String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+}
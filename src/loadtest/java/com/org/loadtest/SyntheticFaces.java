@@ -0,0 +1,118 @@
+package com.org.loadtest;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Draws a synthetic gallery so the load test needs no real photos or camera. Each user gets fixed face
+ * geometry and a skin texture (what LBPH keys on); each sample adds a small shift, lighting change and
+ * sensor noise. The faces keep the bright forehead / dark eye band / bright nose bridge contrast the Haar
+ * cascade looks for, so they go through the real detection path.
+ */
+final class SyntheticFaces {
+
+    static final int IMAGE_WIDTH = 480;
+    static final int IMAGE_HEIGHT = 360;
+
+    private SyntheticFaces() {
+    }
+
+    /** Writes {@code samples} images per user into {@code <dir>/user<N>/}. */
+    static void writeGallery(File dir, int users, int samples) throws IOException {
+        for (int userId = 1; userId <= users; userId++) {
+            File userDir = new File(dir, "user" + userId);
+            Files.createDirectories(userDir.toPath());
+            for (int i = 0; i < samples; i++) {
+                write(new File(userDir, "image" + (i + 1) + ".jpg"), userId, i);
+            }
+        }
+    }
+
+    /** One encoded probe image of {@code userId}, distinct from every training sample. */
+    static byte[] probe(int userId, long seed) throws IOException {
+        File file = Files.createTempFile("probe_", ".jpg").toFile();
+        try {
+            write(file, userId, 1_000_000L + seed);
+            return Files.readAllBytes(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void write(File file, int userId, long sample) throws IOException {
+        try (PointerScope scope = new PointerScope()) {
+            if (!imwrite(file.getAbsolutePath(), draw(userId, sample)))
+                throw new IOException("Failed to write " + file);
+        }
+    }
+
+    static Mat draw(int userId, long sample) {
+        Random identity = new Random(userId * 7919L);
+        Random jitter = new Random(userId * 104_729L + sample);
+
+        Mat image = new Mat(IMAGE_HEIGHT, IMAGE_WIDTH, CV_8UC1, new Scalar(90.0));
+        int faceWidth = 150 + identity.nextInt(30);
+        int faceHeight = (int) (faceWidth * (1.25 + identity.nextDouble() * 0.15));
+        int cx = IMAGE_WIDTH / 2 + jitter.nextInt(21) - 10;
+        int cy = IMAGE_HEIGHT / 2 + jitter.nextInt(21) - 10;
+        double skin = 175 + identity.nextInt(30) + jitter.nextInt(11) - 5;
+
+        ellipse(image, new Point(cx, cy), new Size(faceWidth / 2, faceHeight / 2), 0, 0, 360, new Scalar(skin), -1,
+                LINE_AA, 0);
+        texture(image, cx, cy, faceWidth, faceHeight, identity);
+
+        int eyeY = cy - faceHeight / 8;
+        int eyeDx = faceWidth / 5 + identity.nextInt(8);
+        int eyeW = faceWidth / 9 + identity.nextInt(5);
+        int eyeH = eyeW / 2 + identity.nextInt(3);
+        double dark = skin - 120;
+        for (int side : new int[] { -1, 1 }) {
+            Point eye = new Point(cx + side * eyeDx, eyeY);
+            ellipse(image, new Point(cx + side * eyeDx, eyeY - eyeH * 2), new Size(eyeW + 4, eyeH / 2 + 2), 0, 0, 360,
+                    new Scalar(dark), -1, LINE_AA, 0);
+            ellipse(image, eye, new Size(eyeW, eyeH), 0, 0, 360, new Scalar(dark), -1, LINE_AA, 0);
+        }
+        // Nose bridge stays bright between the eyes; nostrils and mouth are darker.
+        line(image, new Point(cx, eyeY), new Point(cx, cy + faceHeight / 10), new Scalar(Math.min(255, skin + 30)),
+                faceWidth / 14, LINE_AA, 0);
+        ellipse(image, new Point(cx, cy + faceHeight / 8), new Size(faceWidth / 12, faceWidth / 30), 0, 0, 360,
+                new Scalar(skin - 60), -1, LINE_AA, 0);
+        int mouthW = faceWidth / 6 + identity.nextInt(10);
+        ellipse(image, new Point(cx, cy + faceHeight / 4 + identity.nextInt(6)), new Size(mouthW, faceWidth / 22), 0,
+                0, 360, new Scalar(skin - 90), -1, LINE_AA, 0);
+
+        image.convertTo(image, -1, 0.9 + jitter.nextDouble() * 0.2, jitter.nextInt(21) - 10);
+        noise(image, jitter, 6);
+        return image;
+    }
+
+    /** Low-amplitude per-user blotches over the face region. */
+    private static void texture(Mat image, int cx, int cy, int faceWidth, int faceHeight, Random identity) {
+        for (int i = 0; i < 40; i++) {
+            int x = cx - faceWidth / 3 + identity.nextInt(Math.max(1, faceWidth * 2 / 3));
+            int y = cy - faceHeight / 3 + identity.nextInt(Math.max(1, faceHeight * 2 / 3));
+            int r = 3 + identity.nextInt(8);
+            double delta = identity.nextInt(41) - 20;
+            circle(image, new Point(x, y), r, new Scalar(150 + delta), -1, LINE_AA, 0);
+        }
+    }
+
+    private static void noise(Mat image, Random random, int amplitude) {
+        ByteBuffer pixels = image.createBuffer();
+        int total = (int) image.total();
+        for (int i = 0; i < total; i++) {
+            int value = (pixels.get(i) & 0xFF) + random.nextInt(2 * amplitude + 1) - amplitude;
+            pixels.put(i, (byte) Math.max(0, Math.min(255, value)));
+        }
+    }
+}
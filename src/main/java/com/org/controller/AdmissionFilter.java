@@ -0,0 +1,66 @@
+package com.org.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.org.service.AdmissionControl;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Puts the recognition endpoints behind {@link AdmissionControl}. It runs as a servlet filter, before the
+ * multipart body is parsed, so a shed request costs neither the upload nor a decode; the caller gets
+ * {@code 429 Too Many Requests} with a {@code Retry-After} hint.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @Value("${face.admission.paths:/api/face/mark-attendance,/api/face/mark-attendance-from-image,"
+            + "/api/face/mark-attendance-group,/api/face/mark-attendance-batch,/api/face/identify}")
+    private List<String> paths;
+
+    @Value("${face.admission.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !paths.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = admissionControl.tryAdmit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("text/plain");
+            response.getWriter().write("Server busy, retry in " + retryAfterSeconds + "s");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admissionControl.release();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.org.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.org.dto.AttendancePage;
+import com.org.dto.DailyCount;
+import com.org.dto.MonthlyCount;
+import com.org.service.AttendanceService;
+import com.org.service.AttendanceWriter;
+import com.org.service.AttendanceWriter.WriterStats;
+
+@RestController
+@RequestMapping("/api/attendance")
+public class AttendanceController {
+
+    @Autowired
+    private AttendanceService attendanceService;
+
+    @Autowired
+    private AttendanceWriter attendanceWriter;
+
+    // Attendance in a Date Range, Keyset Paginated
+    @GetMapping
+    public ResponseEntity<AttendancePage> findRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(attendanceService.findPage(null, from, to, afterDate, afterId, size));
+    }
+
+    // One User's Attendance in a Date Range, Keyset Paginated
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<AttendancePage> findForUser(@PathVariable int userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate afterDate,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(attendanceService.findPage(userId, from, to, afterDate, afterId, size));
+    }
+
+    // Attendance Count per Day
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailyCount>> countDaily(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceService.countDaily(from, to));
+    }
+
+    // Attendance Count per Month
+    @GetMapping("/monthly")
+    public ResponseEntity<List<MonthlyCount>> countMonthly(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(attendanceService.countMonthly(from, to));
+    }
+
+    // Stream a Date Range as CSV or NDJSON
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format) {
+        boolean ndjson = format.equalsIgnoreCase("ndjson");
+        String fileName = "attendance_" + from + "_" + to + (ndjson ? ".ndjson" : ".csv");
+        StreamingResponseBody body = output -> attendanceService.export(from, to, ndjson, output);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
+
+    // Write-Behind Queue Stats
+    @GetMapping("/writer")
+    public ResponseEntity<WriterStats> writerStats() {
+        return ResponseEntity.ok(attendanceWriter.stats());
+    }
+}
@@ -1,21 +1,44 @@
 package com.org.controller;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.org.dto.Candidate;
+import com.org.dto.CompactionReport;
+import com.org.dto.EnrollmentReport;
+import com.org.dto.FaceResult;
+import com.org.dto.MenuImage;
+import com.org.dto.RecognitionResult;
+import com.org.dto.TrainingJobStatus;
+import com.org.service.AdmissionControl;
+import com.org.service.AdmissionControl.AdmissionStats;
+import com.org.service.CameraStreamService;
+import com.org.service.CameraStreamService.StreamStatus;
+import com.org.service.EnrollmentService;
 import com.org.service.FaceService;
+import com.org.service.MenuImageStore;
+import com.org.service.ModelRegistry;
+import com.org.service.ModelRegistry.ModelSnapshot;
+import com.org.service.RecognizerPool;
+import com.org.service.RecognizerPool.PoolStats;
+import com.org.service.TrainingJobService;
+import com.org.service.TrainingService;
+import com.org.service.UserDirectory;
 
 @RestController
 @RequestMapping("/api/face")
@@ -24,19 +47,69 @@ public class FaceController {
     @Autowired
     private FaceService faceService;
 
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Autowired
+    private RecognizerPool recognizerPool;
+
+    @Autowired
+    private CameraStreamService cameraStreamService;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private TrainingJobService trainingJobService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private MenuImageStore menuImageStore;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=3600";
+
     // Welcome endpoint
     @GetMapping("/")
     public ResponseEntity<String> welcome() {
         return ResponseEntity.ok("Facial Attendance System API is running!\n\n" +
                 "Available endpoints:\n" +
                 "• GET /api/face/capture/{userId}/{numImages} - Capture training images\n" +
-                "• GET /api/face/train - Train the face recognition model\n" +
+                "• GET /api/face/train?group= - Start a training job for a group's recognition model\n" +
+                "• GET /api/face/train/{userId} - Start a job adding one user's images to the model\n" +
+                "• GET /api/face/train/jobs/{jobId} - Training job progress (/cancel to stop it)\n" +
+                "• GET /api/face/compact?group=&userId=&dryRun= - Drop blurred and duplicate training images\n" +
+                "• POST /api/face/enroll?group= - Enroll users from a zip/tar of user<N>/*.jpg sent as the body\n" +
                 "• GET /api/face/mark-attendance - Mark attendance from camera\n" +
+                "• GET /api/face/stream/start|stop|status - Control continuous camera recognition\n" +
+                "• GET /api/face/stream/events - Live attendance marks (server-sent events)\n" +
                 "• POST /api/face/mark-attendance-from-image - Mark attendance from uploaded image\n" +
+                "• POST /api/face/mark-attendance-group - Mark attendance for every face in a photo\n" +
+                "• POST /api/face/identify?k=3 - Rank the closest users for a face\n" +
+                "• POST /api/face/mark-attendance-batch - Mark attendance from many images or a zip\n" +
                 "• POST /api/face/upload-menu-image/{userId} - Upload menu image\n" +
                 "• GET /api/face/menu-images/{userId}/view/{imageName} - View menu images\n" +
-                "• GET /api/face/clear-images/{userId} - Clear training images\n\n" +
-                "H2 Database Console: http://localhost:9090/h2-console");
+                "• GET /api/face/menu-images/{userId}/thumb/{imageName} - View menu image thumbnails\n" +
+                "• GET /api/face/clear-images/{userId} - Clear training images\n" +
+                "• GET /api/face/model - Show the loaded model version and group shards\n" +
+                "  (recognition endpoints take group= or kiosk= to pick the shard to search)\n" +
+                "• GET /api/users, POST /api/users/{userId}?name&group - User directory\n" +
+                "• GET /api/face/pool - Show recognizer pool utilization\n" +
+                "• GET /api/face/admission - Show admitted/queued/rejected recognition requests\n" +
+                "• GET /api/attendance?from&to, /api/attendance/user/{userId}?from&to - Paged attendance\n" +
+                "• GET /api/attendance/daily|monthly?from&to - Attendance counts\n" +
+                "• GET /api/attendance/export?from&to&format=csv|ndjson - Stream attendance export\n" +
+                "• GET /api/attendance/writer - Show attendance write-behind queue stats\n\n" +
+                "H2 Database Console: http://localhost:9090/h2-console\n" +
+                "Metrics: http://localhost:9090/actuator/prometheus");
     }
 
     // Root endpoint
@@ -45,13 +118,33 @@ public class FaceController {
         return ResponseEntity.ok("Facial Attendance System API is running!\n\n" +
                 "Available endpoints:\n" +
                 "• GET /api/face/capture/{userId}/{numImages} - Capture training images\n" +
-                "• GET /api/face/train - Train the face recognition model\n" +
+                "• GET /api/face/train?group= - Start a training job for a group's recognition model\n" +
+                "• GET /api/face/train/{userId} - Start a job adding one user's images to the model\n" +
+                "• GET /api/face/train/jobs/{jobId} - Training job progress (/cancel to stop it)\n" +
+                "• GET /api/face/compact?group=&userId=&dryRun= - Drop blurred and duplicate training images\n" +
+                "• POST /api/face/enroll?group= - Enroll users from a zip/tar of user<N>/*.jpg sent as the body\n" +
                 "• GET /api/face/mark-attendance - Mark attendance from camera\n" +
+                "• GET /api/face/stream/start|stop|status - Control continuous camera recognition\n" +
+                "• GET /api/face/stream/events - Live attendance marks (server-sent events)\n" +
                 "• POST /api/face/mark-attendance-from-image - Mark attendance from uploaded image\n" +
+                "• POST /api/face/mark-attendance-group - Mark attendance for every face in a photo\n" +
+                "• POST /api/face/identify?k=3 - Rank the closest users for a face\n" +
+                "• POST /api/face/mark-attendance-batch - Mark attendance from many images or a zip\n" +
                 "• POST /api/face/upload-menu-image/{userId} - Upload menu image\n" +
                 "• GET /api/face/menu-images/{userId}/view/{imageName} - View menu images\n" +
-                "• GET /api/face/clear-images/{userId} - Clear training images\n\n" +
-                "H2 Database Console: http://localhost:9090/h2-console");
+                "• GET /api/face/menu-images/{userId}/thumb/{imageName} - View menu image thumbnails\n" +
+                "• GET /api/face/clear-images/{userId} - Clear training images\n" +
+                "• GET /api/face/model - Show the loaded model version and group shards\n" +
+                "  (recognition endpoints take group= or kiosk= to pick the shard to search)\n" +
+                "• GET /api/users, POST /api/users/{userId}?name&group - User directory\n" +
+                "• GET /api/face/pool - Show recognizer pool utilization\n" +
+                "• GET /api/face/admission - Show admitted/queued/rejected recognition requests\n" +
+                "• GET /api/attendance?from&to, /api/attendance/user/{userId}?from&to - Paged attendance\n" +
+                "• GET /api/attendance/daily|monthly?from&to - Attendance counts\n" +
+                "• GET /api/attendance/export?from&to&format=csv|ndjson - Stream attendance export\n" +
+                "• GET /api/attendance/writer - Show attendance write-behind queue stats\n\n" +
+                "H2 Database Console: http://localhost:9090/h2-console\n" +
+                "Metrics: http://localhost:9090/actuator/prometheus");
     }
 
     // Capture Training Images
@@ -66,30 +159,146 @@ public class FaceController {
         }
     }
 
-    // Train Model
+    // Train a Group's Model (runs as a background job)
     @GetMapping("/train")
-    public ResponseEntity<String> trainModel() {
+    public ResponseEntity<?> trainModel(@RequestParam(defaultValue = UserDirectory.DEFAULT_GROUP) String group) {
+        try {
+            return ResponseEntity.accepted().body(trainingJobService.submit(group, null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
+    // Training Job Status
+    @GetMapping("/train/jobs")
+    public ResponseEntity<List<TrainingJobStatus>> trainingJobs() {
+        return ResponseEntity.ok(trainingJobService.list());
+    }
+
+    @GetMapping("/train/jobs/{jobId}")
+    public ResponseEntity<?> trainingJob(@PathVariable String jobId) {
+        return trainingJobService.get(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Training job not found: " + jobId));
+    }
+
+    // Cancel Training Job
+    @GetMapping("/train/jobs/{jobId}/cancel")
+    public ResponseEntity<?> cancelTrainingJob(@PathVariable String jobId) {
+        return trainingJobService.cancel(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Training job not found: " + jobId));
+    }
+
+    // Drop Blurred, Badly Exposed and Near-Duplicate Training Images
+    @GetMapping("/compact")
+    public ResponseEntity<?> compactTrainingImages(@RequestParam(required = false) Integer userId,
+            @RequestParam(defaultValue = UserDirectory.DEFAULT_GROUP) String group,
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            String shard = userId != null ? userDirectory.groupOf(userId) : UserDirectory.checkGroup(group);
+            CompactionReport report = trainingService.compact(shard, userId, dryRun);
+            return ResponseEntity.ok(report);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Compaction error: " + e.getMessage());
+        }
+    }
+
+    // Enroll Users in Bulk from a Zip or Tar Archive Streamed as the Request Body
+    @PostMapping(value = "/enroll", consumes = { "application/zip", "application/x-zip-compressed",
+            "application/x-tar", "application/gzip", "application/x-gzip", "application/octet-stream" })
+    public ResponseEntity<?> enroll(@RequestParam(defaultValue = UserDirectory.DEFAULT_GROUP) String group,
+            HttpServletRequest request) {
         try {
-            faceService.trainModel();
-            return ResponseEntity.ok("Model trained and saved as lbph_model.xml");
+            EnrollmentReport report = enrollmentService.enroll(UserDirectory.checkGroup(group),
+                    request.getInputStream());
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Training error: " + e.getMessage());
+                    .body("Enrollment error: " + e.getMessage());
         }
     }
 
+    // Add One User to the Model Without Retraining Everyone (runs as a background job)
+    @GetMapping("/train/{userId}")
+    public ResponseEntity<TrainingJobStatus> trainUser(@PathVariable int userId) {
+        return ResponseEntity.accepted().body(trainingJobService.submit(null, userId));
+    }
+
+    // Loaded Model Info
+    @GetMapping("/model")
+    public ResponseEntity<Map<String, Object>> modelInfo() {
+        ModelSnapshot model = modelRegistry.current();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("version", model.version());
+        info.put("loadedAt", model.loadedAt().toString());
+        info.put("source", model.source());
+        info.put("loadMillis", model.loadMillis());
+        info.put("trained", model.hasModel());
+        info.put("histograms", model.hasModel() ? model.model().size() : 0);
+        Map<String, Integer> shards = new TreeMap<>();
+        model.shards().forEach((group, shard) -> shards.put(group, shard.size()));
+        info.put("groups", shards);
+        return ResponseEntity.ok(info);
+    }
+
+    // Recognizer Pool Stats
+    @GetMapping("/pool")
+    public ResponseEntity<PoolStats> poolStats() {
+        return ResponseEntity.ok(recognizerPool.stats());
+    }
+
+    // Admission Control Stats
+    @GetMapping("/admission")
+    public ResponseEntity<AdmissionStats> admissionStats() {
+        return ResponseEntity.ok(admissionControl.stats());
+    }
+
     // Mark Attendance from Camera
     @GetMapping("/mark-attendance")
-    public ResponseEntity<String> markAttendance() {
-        String result = faceService.recognizeAndMark();
-        return ResponseEntity.ok(result);
+    public ResponseEntity<String> markAttendance(@RequestParam(required = false) String group,
+            @RequestParam(required = false) String kiosk) {
+        try {
+            String result = faceService.recognizeAndMark(userDirectory.resolveGroup(group, kiosk));
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        }
+    }
+
+    // Start Continuous Camera Recognition
+    @GetMapping("/stream/start")
+    public ResponseEntity<String> startStream() {
+        return ResponseEntity.ok(cameraStreamService.start());
+    }
+
+    // Stop Continuous Camera Recognition
+    @GetMapping("/stream/stop")
+    public ResponseEntity<String> stopStream() {
+        return ResponseEntity.ok(cameraStreamService.stop());
+    }
+
+    // Camera Stream Status
+    @GetMapping("/stream/status")
+    public ResponseEntity<StreamStatus> streamStatus() {
+        return ResponseEntity.ok(cameraStreamService.status());
+    }
+
+    // Live Attendance Marks (Server-Sent Events)
+    @GetMapping(value = "/stream/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        return cameraStreamService.subscribe();
     }
 
     // Mark Attendance from Uploaded Image
     @PostMapping("/mark-attendance-from-image")
-    public ResponseEntity<String> markAttendanceFromImage(@RequestParam("image") MultipartFile imageFile) {
+    public ResponseEntity<String> markAttendanceFromImage(@RequestParam("image") MultipartFile imageFile,
+            @RequestParam(required = false) String group, @RequestParam(required = false) String kiosk) {
         try {
-            String result = faceService.recognizeFromImage(imageFile);
+            String result = faceService.recognizeFromImage(imageFile, userDirectory.resolveGroup(group, kiosk));
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -97,48 +306,97 @@ public class FaceController {
         }
     }
 
-    // Upload Menu Image
-    @PostMapping("/upload-menu-image/{userId}")
-    public ResponseEntity<String> uploadMenuImage(@RequestParam("menuImage") MultipartFile menuImage,
-            @PathVariable int userId) {
+    // Rank the Closest Users for an Uploaded Face
+    @PostMapping("/identify")
+    public ResponseEntity<?> identify(@RequestParam("image") MultipartFile imageFile,
+            @RequestParam(value = "k", defaultValue = "3") int k, @RequestParam(required = false) String group,
+            @RequestParam(required = false) String kiosk) {
         try {
-            String result = faceService.uploadMenuImage(menuImage, userId);
-            return ResponseEntity.ok(result);
+            List<Candidate> candidates = faceService.identify(imageFile, k, userDirectory.resolveGroup(group, kiosk));
+            return ResponseEntity.ok(candidates);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error: " + e.getMessage());
         }
     }
 
-    // View Menu Image
-    @GetMapping("/menu-images/{userId}/view/{imageName}")
-    public ResponseEntity<Resource> viewMenuImage(@PathVariable int userId, @PathVariable String imageName) {
+    // Mark Attendance for Every Face in a Group Photo
+    @PostMapping("/mark-attendance-group")
+    public ResponseEntity<?> markAttendanceGroup(@RequestParam("image") MultipartFile imageFile,
+            @RequestParam(required = false) String group, @RequestParam(required = false) String kiosk) {
         try {
-            Path imagePath = Paths.get("C:/menu_images/user" + userId + "/", imageName);
+            List<FaceResult> results = faceService.recognizeAllFaces(imageFile,
+                    userDirectory.resolveGroup(group, kiosk));
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error: " + e.getMessage());
+        }
+    }
 
-            if (!Files.exists(imagePath)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
-            }
+    // Mark Attendance from a Batch of Uploaded Images or a Zip Archive
+    @PostMapping("/mark-attendance-batch")
+    public ResponseEntity<?> markAttendanceBatch(
+            @RequestParam(value = "images", required = false) List<MultipartFile> images,
+            @RequestParam(value = "archive", required = false) MultipartFile archive,
+            @RequestParam(required = false) String group, @RequestParam(required = false) String kiosk) {
+        try {
+            List<RecognitionResult> results = faceService.recognizeBatch(images, archive,
+                    userDirectory.resolveGroup(group, kiosk));
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Error: " + e.getMessage());
+        }
+    }
 
-            Resource fileResource = new UrlResource(imagePath.toUri());
+    // Upload Menu Image
+    @PostMapping("/upload-menu-image/{userId}")
+    public ResponseEntity<?> uploadMenuImage(@RequestParam("menuImage") MultipartFile menuImage,
+            @PathVariable int userId) {
+        try {
+            MenuImage stored = menuImageStore.store(menuImage, userId);
+            return ResponseEntity.ok(stored);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error uploading menu image: " + e.getMessage());
+        }
+    }
 
-            String contentType = Files.probeContentType(imagePath); // auto detect content type like jpeg/png/gif etc
+    // View Menu Image
+    @GetMapping("/menu-images/{userId}/view/{imageName}")
+    public void viewMenuImage(@PathVariable int userId, @PathVariable String imageName, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        File image = menuImageStore.find(userId, imageName);
+        if (image == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (menuImageStore.isContentAddressed(imageName)) {
+            // The name is the content hash, so the file can never change under it.
+            FileSender.send(image, "\"" + imageName + "\"", IMMUTABLE, request, response);
+        } else {
+            FileSender.send(image, "\"" + Long.toHexString(image.lastModified()) + "-"
+                    + Long.toHexString(image.length()) + "\"", REVALIDATE, request, response);
+        }
+    }
 
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + imageName + "\"")
-                    .contentType(
-                            MediaType.parseMediaType(contentType != null ? contentType : "application/octet-stream"))
-                    .body(fileResource);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+    // View Menu Image Thumbnail
+    @GetMapping("/menu-images/{userId}/thumb/{imageName}")
+    public void viewMenuThumbnail(@PathVariable int userId, @PathVariable String imageName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        File thumbnail = menuImageStore.findThumbnail(userId, imageName);
+        if (thumbnail == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
         }
+        FileSender.send(thumbnail, "\"thumb-" + imageName + "\"", IMMUTABLE, request, response);
     }
 
     // Clear Training Images
     @GetMapping("/clear-images/{userId}")
     public ResponseEntity<String> clearImages(@PathVariable int userId) {
-        String folderPath = "C:/training_images/user" + userId + "/";
-        File folder = new File(folderPath);
+        File folder = trainingService.getUserDir(userId);
 
         if (folder.exists() && folder.isDirectory()) {
             for (File file : folder.listFiles()) {
@@ -0,0 +1,140 @@
+package com.org.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a file to the response with ETag revalidation and single byte-range support. When the servlet
+ * container offers sendfile (Tomcat's NIO connector does) the body is handed to the kernel instead of
+ * being copied through the JVM; otherwise it is streamed with {@link FileChannel#transferTo}.
+ */
+final class FileSender {
+
+    private static final Pattern BYTE_RANGE = Pattern.compile("(\\d*)\\s*-\\s*(\\d*)");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileSender() {
+    }
+
+    static void send(File file, String etag, String cacheControl, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        long length = file.length();
+        MediaType contentType = MediaTypeFactory.getMediaType(file.getName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, file.lastModified());
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length; // exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE,
+                        "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod()) || end == start)
+            return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single {@code bytes=} range into [start, end). Returns an empty array when the header should
+     * be ignored and the full file served (unknown unit, several ranges, or a syntactically invalid range
+     * such as {@code 5-3}, per RFC 9110) and null when a valid range cannot be satisfied.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.contains(","))
+            return new long[0];
+        Matcher spec = BYTE_RANGE.matcher(header.substring("bytes=".length()).trim());
+        if (!spec.matches() || (spec.group(1).isEmpty() && spec.group(2).isEmpty()))
+            return new long[0];
+        try {
+            String first = spec.group(1);
+            String last = spec.group(2);
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix == 0)
+                    return null;
+                start = Math.max(length - suffix, 0);
+                end = length;
+            } else {
+                start = Long.parseLong(first);
+                if (!last.isEmpty() && Long.parseLong(last) < start)
+                    return new long[0];
+                end = last.isEmpty() ? length : Math.min(Long.parseLong(last) + 1, length);
+            }
+            if (start >= length)
+                return null;
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
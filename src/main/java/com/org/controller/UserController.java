@@ -0,0 +1,43 @@
+package com.org.controller;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.org.model.UserProfile;
+import com.org.service.TrainingService;
+import com.org.service.UserDirectory;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    // All Known Users and Their Groups
+    @GetMapping
+    public ResponseEntity<List<UserProfile>> listUsers() {
+        return ResponseEntity.ok(userDirectory.all());
+    }
+
+    // Add or Update a User (their images move with them; recognition follows once both groups are retrained)
+    @PostMapping("/{userId}")
+    public ResponseEntity<?> saveUser(@PathVariable int userId, @RequestParam String name,
+            @RequestParam(defaultValue = UserDirectory.DEFAULT_GROUP) String group) {
+        try {
+            return ResponseEntity.ok(trainingService.assignUser(userId, name, group));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
+        }
+    }
+}
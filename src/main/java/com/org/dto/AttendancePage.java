@@ -0,0 +1,13 @@
+package com.org.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.org.model.Attendance;
+
+/**
+ * One keyset page. Pass {@code nextAfterDate}/{@code nextAfterId} back as {@code afterDate}/{@code afterId}
+ * to fetch the following page; both are null on the last page.
+ */
+public record AttendancePage(List<Attendance> items, LocalDate nextAfterDate, Long nextAfterId) {
+}
@@ -0,0 +1,7 @@
+package com.org.dto;
+
+/**
+ * One ranked identity for a face: the closest sample distance found for that user.
+ */
+public record Candidate(int userId, String name, double distance) {
+}
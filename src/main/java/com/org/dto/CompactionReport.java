@@ -0,0 +1,15 @@
+package com.org.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a training-set compaction pass. Dropped images are moved to each user's {@code rejected}
+ * folder rather than deleted; on a dry run nothing is moved.
+ */
+public record CompactionReport(boolean dryRun, int users, int scanned, int kept, int dropped,
+        Map<String, Integer> droppedByReason, List<UserCompaction> perUser, long totalMillis) {
+
+    public record UserCompaction(int userId, int kept, int dropped, Map<String, Integer> droppedByReason) {
+    }
+}
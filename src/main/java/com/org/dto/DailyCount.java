@@ -0,0 +1,6 @@
+package com.org.dto;
+
+import java.time.LocalDate;
+
+public record DailyCount(LocalDate date, long count) {
+}
@@ -0,0 +1,16 @@
+package com.org.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a bulk enrollment from an archive. {@code skipped} counts entries that are not
+ * {@code user<N>/*.jpg|png} images; {@code newUsers} lists the ids added to the user directory.
+ */
+public record EnrollmentReport(String group, int entries, int accepted, int rejected, int skipped,
+        Map<String, Integer> rejectedByReason, List<UserEnrollment> perUser, List<Integer> newUsers,
+        long modelVersion, long totalMillis) {
+
+    public record UserEnrollment(int userId, int accepted, int rejected, Map<String, Integer> rejectedByReason) {
+    }
+}
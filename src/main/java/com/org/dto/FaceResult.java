@@ -0,0 +1,14 @@
+package com.org.dto;
+
+/**
+ * Outcome for one detected face in a group photo, with its bounding box in image coordinates.
+ */
+public record FaceResult(int x, int y, int width, int height, Integer userId, String name, Double confidence,
+        String status) {
+
+    public static final String MARKED = "MARKED";
+    public static final String ALREADY_MARKED = "ALREADY_MARKED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String NOT_RECOGNIZED = "NOT_RECOGNIZED";
+    public static final String ERROR = "ERROR";
+}
@@ -0,0 +1,9 @@
+package com.org.dto;
+
+/**
+ * A stored menu image. {@code imageName} is the content hash plus extension, so the same upload always
+ * gets the same name; {@code deduplicated} is true when the content was already stored.
+ */
+public record MenuImage(String imageName, String sha256, long size, boolean deduplicated, String url,
+        String thumbnailUrl) {
+}
@@ -0,0 +1,4 @@
+package com.org.dto;
+
+public record MonthlyCount(int year, int month, long count) {
+}
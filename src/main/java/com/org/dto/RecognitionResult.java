@@ -0,0 +1,17 @@
+package com.org.dto;
+
+/**
+ * Per-image outcome returned by the batch recognition endpoint.
+ */
+public record RecognitionResult(String image, Integer userId, String name, Double confidence, String status) {
+
+    public static final String MARKED = "MARKED";
+    public static final String ALREADY_MARKED = "ALREADY_MARKED";
+    public static final String NOT_RECOGNIZED = "NOT_RECOGNIZED";
+    public static final String NO_FACE = "NO_FACE";
+    public static final String ERROR = "ERROR";
+
+    public static RecognitionResult failed(String image, String status) {
+        return new RecognitionResult(image, null, null, null, status);
+    }
+}
@@ -0,0 +1,12 @@
+package com.org.dto;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of a background training job for one group. {@code userId} is null for a full retrain;
+ * {@code report} is set once the job has succeeded and {@code error} once it has failed.
+ */
+public record TrainingJobStatus(String jobId, String group, Integer userId, String status, String phase, int imagesTotal,
+        int imagesProcessed, int facesFound, Long etaMillis, Instant submittedAt, Instant startedAt,
+        Instant finishedAt, TrainingReport report, String error) {
+}
@@ -0,0 +1,10 @@
+package com.org.dto;
+
+/**
+ * Summary of one training run of a group's model. Decode and detect times are summed over all worker
+ * threads; the other phases are wall-clock times.
+ */
+public record TrainingReport(String group, String mode, int users, int imagesScanned, int facesFound, int parallelism,
+        long decodeMillis, long detectMillis, long extractMillis, long trainMillis, long saveMillis,
+        long totalMillis, long modelVersion) {
+}
@@ -7,8 +7,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_attendance_user_date", columnNames = { "userId", "date" }),
+        indexes = @Index(name = "idx_attendance_date_user", columnList = "date, userId"))
 public class Attendance {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
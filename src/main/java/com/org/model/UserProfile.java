@@ -0,0 +1,39 @@
+package com.org.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A recognizable person. The id is the LBPH label used in the training folders ({@code user<id>}), and
+ * {@code groupName} picks the model shard the user is trained into and recognized against.
+ */
+@Entity
+@Table(name = "app_user", indexes = @Index(name = "idx_app_user_group", columnList = "groupName"))
+public class UserProfile {
+    @Id
+    private Integer id;
+
+    private String name;
+    private String groupName;
+
+	public Integer getId() {
+		return id;
+	}
+	public void setId(Integer id) {
+		this.id = id;
+	}
+	public String getName() {
+		return name;
+	}
+	public void setName(String name) {
+		this.name = name;
+	}
+	public String getGroupName() {
+		return groupName;
+	}
+	public void setGroupName(String groupName) {
+		this.groupName = groupName;
+	}
+}
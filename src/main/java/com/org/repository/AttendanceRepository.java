@@ -1,11 +1,50 @@
 package com.org.repository;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import com.org.dto.DailyCount;
+import com.org.dto.MonthlyCount;
 import com.org.model.Attendance;
 
+import jakarta.persistence.QueryHint;
+
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
-    boolean existsByUserIdAndDate(int userId, LocalDate date);
+    @Query("select a.userId from Attendance a where a.date = :date")
+    List<Integer> findUserIdsByDate(@Param("date") LocalDate date);
+
+    // Keyset pagination: rows strictly after (afterDate, afterId) in (date, id) order.
+
+    @Query("select a from Attendance a where a.userId = :userId and a.date between :from and :to"
+            + " and (a.date > :afterDate or (a.date = :afterDate and a.id > :afterId)) order by a.date, a.id")
+    List<Attendance> findUserPage(@Param("userId") int userId, @Param("from") LocalDate from,
+            @Param("to") LocalDate to, @Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId,
+            Pageable limit);
+
+    @Query("select a from Attendance a where a.date between :from and :to"
+            + " and (a.date > :afterDate or (a.date = :afterDate and a.id > :afterId)) order by a.date, a.id")
+    List<Attendance> findRangePage(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("afterDate") LocalDate afterDate, @Param("afterId") long afterId, Pageable limit);
+
+    @Query("select new com.org.dto.DailyCount(a.date, count(a)) from Attendance a"
+            + " where a.date between :from and :to group by a.date order by a.date")
+    List<DailyCount> countDaily(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.org.dto.MonthlyCount(extract(year from a.date), extract(month from a.date), count(a))"
+            + " from Attendance a where a.date between :from and :to"
+            + " group by extract(year from a.date), extract(month from a.date)"
+            + " order by extract(year from a.date), extract(month from a.date)")
+    List<MonthlyCount> countMonthly(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select a from Attendance a where a.date between :from and :to order by a.date, a.id")
+    Stream<Attendance> streamByDateRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -0,0 +1,8 @@
+package com.org.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.org.model.UserProfile;
+
+public interface UserProfileRepository extends JpaRepository<UserProfile, Integer> {
+}
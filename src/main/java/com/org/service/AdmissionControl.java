@@ -0,0 +1,118 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many recognition requests run at once. A request that finds no free slot waits in a short
+ * queue for at most {@code face.admission.max-queue-wait-ms}; when the queue is full or the wait runs out
+ * it is shed so the caller can retry, instead of piling decoded images up in native memory.
+ * <ul>
+ * <li>{@code face.admission} counter, tagged by outcome: admitted, queued, rejected</li>
+ * <li>{@code face.admission.in_flight} and {@code face.admission.queue_depth} gauges</li>
+ * <li>{@code face.admission.wait} timer for the time queued requests waited</li>
+ * </ul>
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    public record AdmissionStats(int maxInFlight, int inFlight, int queueCapacity, int queued, long admitted,
+            long queuedTotal, long rejected) {
+    }
+
+    private final int maxInFlight;
+    private final int queueCapacity;
+    private final long maxQueueWaitMillis;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter admitted;
+    private final Counter queuedTotal;
+    private final Counter rejected;
+    private final Timer queueWait;
+
+    public AdmissionControl(MeterRegistry registry,
+            @Value("${face.admission.max-in-flight:0}") int configuredMaxInFlight,
+            @Value("${face.admission.queue-size:16}") int queueCapacity,
+            @Value("${face.admission.max-queue-wait-ms:500}") long maxQueueWaitMillis) {
+        // Decoding overlaps with recognition, so allow a few more requests than there are pooled engines.
+        this.maxInFlight = configuredMaxInFlight > 0 ? configuredMaxInFlight
+                : 2 * Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = queueCapacity;
+        this.maxQueueWaitMillis = maxQueueWaitMillis;
+        this.permits = new Semaphore(maxInFlight, true);
+
+        admitted = outcome(registry, "admitted");
+        queuedTotal = outcome(registry, "queued");
+        rejected = outcome(registry, "rejected");
+        queueWait = Timer.builder("face.admission.wait")
+                .description("Time a recognition request waited in the admission queue")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("face.admission.in_flight", () -> maxInFlight - permits.availablePermits())
+                .description("Recognition requests currently running")
+                .register(registry);
+        Gauge.builder("face.admission.queue_depth", queued::get)
+                .description("Recognition requests waiting for a slot")
+                .register(registry);
+        log.info("Admission control: {} in flight, queue of {}", maxInFlight, queueCapacity);
+    }
+
+    /**
+     * Takes a slot, waiting in the queue if needed. Returns false when the request should be shed; a true
+     * result must be paired with {@link #release()}.
+     */
+    public boolean tryAdmit() throws InterruptedException {
+        if (permits.tryAcquire()) {
+            admitted.increment();
+            return true;
+        }
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+
+        queuedTotal.increment();
+        long start = System.nanoTime();
+        try {
+            if (permits.tryAcquire(maxQueueWaitMillis, TimeUnit.MILLISECONDS)) {
+                admitted.increment();
+                return true;
+            }
+            rejected.increment();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+            queueWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public AdmissionStats stats() {
+        return new AdmissionStats(maxInFlight, maxInFlight - permits.availablePermits(), queueCapacity,
+                queued.get(), (long) admitted.count(), (long) queuedTotal.count(), (long) rejected.count());
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("face.admission")
+                .description("Recognition requests by admission outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
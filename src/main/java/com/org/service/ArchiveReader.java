@@ -0,0 +1,216 @@
+package com.org.service;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Forward-only reader over the file entries of a zip, tar or gzipped tar stream, detected from the first
+ * bytes. Nothing is buffered beyond the entry being read, so archives of any size can be consumed straight
+ * from a request body.
+ */
+final class ArchiveReader implements Closeable {
+
+    /** A file entry; {@code size} is -1 when the archive does not record it up front (streamed zips). */
+    record Entry(String name, long size) {
+    }
+
+    private static final int BLOCK = 512;
+
+    /** GNU long names and pax records are buffered whole, so their untrusted sizes are capped. */
+    static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private final InputStream in;
+    private final ZipInputStream zip;
+    private final byte[] header = new byte[BLOCK];
+    private long remaining;
+    private long padding;
+
+    private ArchiveReader(InputStream in, boolean isZip) {
+        this.in = in;
+        this.zip = isZip ? new ZipInputStream(in) : null;
+    }
+
+    static ArchiveReader open(InputStream raw) throws IOException {
+        InputStream in = new BufferedInputStream(raw, 64 * 1024);
+        byte[] magic = peek(in, 4);
+        if (magic.length >= 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b) {
+            in = new BufferedInputStream(new GZIPInputStream(in, 64 * 1024), 64 * 1024);
+            magic = peek(in, 4);
+        }
+        boolean isZip = magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+        return new ArchiveReader(in, isZip);
+    }
+
+    /** Advances to the next file entry, skipping directories and metadata; null at the end of the archive. */
+    Entry next() throws IOException {
+        if (zip != null) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!entry.isDirectory())
+                    return new Entry(entry.getName(), entry.getSize());
+            }
+            return null;
+        }
+
+        String longName = null;
+        while (true) {
+            in.skipNBytes(remaining + padding);
+            remaining = 0;
+            padding = 0;
+
+            int read = in.readNBytes(header, 0, BLOCK);
+            if (read == 0 || isZeroBlock(header))
+                return null;
+            if (read < BLOCK)
+                throw new EOFException("Truncated tar archive");
+            if (!checksumMatches(header))
+                throw new IOException("Not a zip or tar archive");
+
+            long size = octal(header, 124, 12);
+            remaining = size;
+            padding = (BLOCK - size % BLOCK) % BLOCK;
+            char type = (char) header[156];
+
+            switch (type) {
+                case '0', '\0', '7' -> {
+                    String name = longName != null ? longName : headerName(header);
+                    return new Entry(name, size);
+                }
+                case 'L' -> longName = trimNul(readHeader(size));
+                case 'x' -> {
+                    String path = paxPath(readHeader(size));
+                    if (path != null)
+                        longName = path;
+                }
+                default -> {
+                    // Directories, links and global headers carry no image data.
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the current entry when it is at most {@code limit} bytes; returns null for larger entries,
+     * which are skipped by the next call to {@link #next()}.
+     */
+    byte[] read(int limit) throws IOException {
+        if (zip != null) {
+            byte[] data = zip.readNBytes(limit + 1);
+            return data.length > limit ? null : data;
+        }
+        if (remaining > limit)
+            return null;
+        return readBytes(remaining);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (zip != null)
+            zip.close();
+        else
+            in.close();
+    }
+
+    private byte[] readHeader(long size) throws IOException {
+        if (size > MAX_HEADER_BYTES)
+            throw new IOException("Tar extended header of " + size + " bytes exceeds the " + MAX_HEADER_BYTES
+                    + " byte limit");
+        return readBytes(size);
+    }
+
+    private byte[] readBytes(long size) throws IOException {
+        byte[] data = in.readNBytes((int) size);
+        if (data.length < size)
+            throw new EOFException("Truncated tar archive");
+        remaining = 0;
+        return data;
+    }
+
+    private static byte[] peek(InputStream in, int length) throws IOException {
+        in.mark(length);
+        byte[] bytes = in.readNBytes(length);
+        in.reset();
+        return bytes;
+    }
+
+    private static String headerName(byte[] header) {
+        String name = string(header, 0, 100);
+        String prefix = string(header, 345, 155);
+        boolean ustar = string(header, 257, 5).equals("ustar");
+        return ustar && !prefix.isEmpty() ? prefix + "/" + name : name;
+    }
+
+    /**
+     * The {@code path} record of a pax extended header, which overrides the next entry's name. Records are
+     * {@code "<length> <key>=<value>\n"} with the length counted in bytes, including itself.
+     */
+    private static String paxPath(byte[] records) throws IOException {
+        int pos = 0;
+        while (pos < records.length) {
+            int space = pos;
+            while (space < records.length && records[space] != ' ')
+                space++;
+            int length;
+            try {
+                length = Integer.parseInt(new String(records, pos, space - pos, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed pax header");
+            }
+            if (space == records.length || length < space - pos + 2 || length > records.length - pos
+                    || records[pos + length - 1] != '\n')
+                throw new IOException("Malformed pax header");
+            String record = new String(records, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path="))
+                return record.substring(5);
+            pos += length;
+        }
+        return null;
+    }
+
+    private static boolean checksumMatches(byte[] header) throws IOException {
+        long expected = octal(header, 148, 8);
+        long sum = 0;
+        for (int i = 0; i < BLOCK; i++) {
+            sum += i >= 148 && i < 156 ? ' ' : header[i] & 0xff;
+        }
+        return sum == expected;
+    }
+
+    private static long octal(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0)
+            throw new IOException("Tar entries over 8 GB are not supported");
+        String digits = string(header, offset, length).trim();
+        try {
+            return digits.isEmpty() ? 0 : Long.parseLong(digits, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a zip or tar archive");
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static String string(byte[] bytes, int offset, int length) {
+        return trimNul(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    private static String trimNul(byte[] bytes) {
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0)
+            end++;
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.org.repository.AttendanceRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/**
+ * Bitmap of the user IDs already marked on the current day, so repeat scans are answered without a
+ * database round trip. It is warmed from the database at startup and again on the first access after
+ * the date changes. The unique (userId, date) constraint on {@code Attendance} stays the source of truth.
+ */
+@Component
+public class AttendanceDayCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceDayCache.class);
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired(required = false)
+    private Clock clock = Clock.systemDefaultZone();
+
+    private LocalDate day;
+    private BitSet marked = new BitSet();
+
+    @PostConstruct
+    public void init() {
+        warm(LocalDate.now(clock));
+    }
+
+    /** Sets the user's bit for the date; returns false if it was already set. */
+    public synchronized boolean tryMark(int userId, LocalDate date) {
+        rollOver(date);
+        if (userId < 0 || marked.get(userId))
+            return false;
+        marked.set(userId);
+        return true;
+    }
+
+    /** Reloads today's bitmap from the database, e.g. after rows were written around the cache. */
+    public synchronized void refresh() {
+        warm(LocalDate.now(clock));
+    }
+
+    /** Clears a bit set by {@link #tryMark} when the database write did not go through. */
+    public synchronized void unmark(int userId, LocalDate date) {
+        if (date.equals(day) && userId >= 0)
+            marked.clear(userId);
+    }
+
+    private void rollOver(LocalDate date) {
+        if (!date.equals(day))
+            warm(date);
+    }
+
+    private synchronized void warm(LocalDate date) {
+        BitSet fresh = new BitSet();
+        for (Integer userId : attendanceRepository.findUserIdsByDate(date)) {
+            if (userId != null && userId >= 0)
+                fresh.set(userId);
+        }
+        day = date;
+        marked = fresh;
+        log.info("Attendance cache warmed for {}: {} users", date, fresh.cardinality());
+    }
+}
@@ -0,0 +1,198 @@
+package com.org.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.org.dto.AttendancePage;
+import com.org.dto.DailyCount;
+import com.org.dto.MonthlyCount;
+import com.org.model.Attendance;
+import com.org.repository.AttendanceRepository;
+import com.org.service.AttendanceWriter.PendingMark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Service
+public class AttendanceService {
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private AttendanceDayCache dayCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private AttendanceWriter attendanceWriter;
+
+    @Autowired
+    private FaceMetrics faceMetrics;
+
+    @Autowired(required = false)
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Value("${face.attendance.write-behind:true}")
+    private boolean writeBehind;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    /** Marks the user present for today; returns false if they were already marked. */
+    public boolean markIfAbsent(int userId) {
+        LocalDate date = LocalDate.now(clock);
+        if (!dayCache.tryMark(userId, date)) {
+            faceMetrics.alreadyMarked(1);
+            return false;
+        }
+        if (writeBehind) {
+            attendanceWriter.enqueue(new PendingMark(userId, date, LocalTime.now(clock)));
+            return true;
+        }
+        return insertIfAbsent(newAttendance(userId, date, LocalTime.now(clock)));
+    }
+
+    /**
+     * Marks every user not yet present today with one batch insert in a single transaction.
+     * Returns the IDs that were newly marked.
+     */
+    public Set<Integer> markAll(Collection<Integer> userIds) {
+        LocalDate date = LocalDate.now(clock);
+        LocalTime time = LocalTime.now(clock);
+        List<Attendance> rows = new ArrayList<>();
+        Set<Integer> requested = new LinkedHashSet<>(userIds);
+        for (int userId : requested) {
+            if (dayCache.tryMark(userId, date))
+                rows.add(newAttendance(userId, date, time));
+        }
+        faceMetrics.alreadyMarked(requested.size() - rows.size());
+        if (rows.isEmpty())
+            return Set.of();
+
+        if (writeBehind) {
+            Set<Integer> marked = new LinkedHashSet<>();
+            for (Attendance att : rows) {
+                attendanceWriter.enqueue(new PendingMark(att.getUserId(), date, time));
+                marked.add(att.getUserId());
+            }
+            return marked;
+        }
+
+        Set<Integer> marked = new LinkedHashSet<>();
+        try {
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> attendanceRepository.saveAll(rows));
+            faceMetrics.recordStage(FaceMetrics.DB_WRITE, start);
+            rows.forEach(att -> marked.add(att.getUserId()));
+        } catch (DataIntegrityViolationException e) {
+            // Another writer got some of these in first; fall back to row-by-row inserts.
+            for (Attendance att : rows) {
+                att.setId(null);
+                if (insertIfAbsent(att))
+                    marked.add(att.getUserId());
+            }
+        } catch (RuntimeException e) {
+            rows.forEach(att -> dayCache.unmark(att.getUserId(), date));
+            throw e;
+        }
+        return marked;
+    }
+
+    /** One keyset page of a user's attendance in the date range; pass a null userId for all users. */
+    public AttendancePage findPage(Integer userId, LocalDate from, LocalDate to, LocalDate afterDate, Long afterId,
+            int size) {
+        LocalDate cursorDate = afterDate != null ? afterDate : from.minusDays(1);
+        long cursorId = afterId != null ? afterId : 0L;
+        PageRequest limit = PageRequest.ofSize(Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+
+        List<Attendance> items = userId != null
+                ? attendanceRepository.findUserPage(userId, from, to, cursorDate, cursorId, limit)
+                : attendanceRepository.findRangePage(from, to, cursorDate, cursorId, limit);
+        if (items.size() < limit.getPageSize())
+            return new AttendancePage(items, null, null);
+
+        Attendance last = items.get(items.size() - 1);
+        return new AttendancePage(items, last.getDate(), last.getId());
+    }
+
+    public List<DailyCount> countDaily(LocalDate from, LocalDate to) {
+        return attendanceRepository.countDaily(from, to);
+    }
+
+    public List<MonthlyCount> countMonthly(LocalDate from, LocalDate to) {
+        return attendanceRepository.countMonthly(from, to);
+    }
+
+    /**
+     * Streams the date range to the output as CSV or NDJSON. Rows are written as they are read and detached
+     * right away, so memory use does not depend on the size of the range.
+     */
+    @Transactional(readOnly = true)
+    public long export(LocalDate from, LocalDate to, boolean ndjson, OutputStream output) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (!ndjson)
+            out.write("id,userId,date,time\n");
+
+        long rows = 0;
+        try (Stream<Attendance> stream = attendanceRepository.streamByDateRange(from, to)) {
+            Iterator<Attendance> it = stream.iterator();
+            while (it.hasNext()) {
+                Attendance att = it.next();
+                if (ndjson) {
+                    out.write("{\"id\":" + att.getId() + ",\"userId\":" + att.getUserId() + ",\"date\":\""
+                            + att.getDate() + "\",\"time\":\"" + att.getTime() + "\"}\n");
+                } else {
+                    out.write(att.getId() + "," + att.getUserId() + "," + att.getDate() + "," + att.getTime() + "\n");
+                }
+                entityManager.detach(att);
+                rows++;
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+    /** Relies on the unique (userId, date) constraint instead of a separate existence query. */
+    private boolean insertIfAbsent(Attendance att) {
+        try {
+            long start = System.nanoTime();
+            attendanceRepository.saveAndFlush(att);
+            faceMetrics.recordStage(FaceMetrics.DB_WRITE, start);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        } catch (RuntimeException e) {
+            dayCache.unmark(att.getUserId(), att.getDate());
+            throw e;
+        }
+    }
+
+    private Attendance newAttendance(int userId, LocalDate date, LocalTime time) {
+        Attendance att = new Attendance();
+        att.setUserId(userId);
+        att.setDate(date);
+        att.setTime(time);
+        return att;
+    }
+}
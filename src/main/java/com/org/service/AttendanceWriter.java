@@ -0,0 +1,274 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for attendance rows. Request threads only enqueue; a background thread flushes
+ * batches with a single JDBC batch insert once {@code batch-size} rows are waiting or
+ * {@code flush-interval-ms} has passed. Rows that cannot be written (database down, or still queued at
+ * shutdown) are appended to a local spill file and replayed on the next start, after which the day cache
+ * is reloaded so the replayed users count as marked.
+ * <p>
+ * Replay and the final drain run as a lifecycle phase rather than bean init/destroy callbacks: lifecycle
+ * beans start once the JPA schema exists and stop before the entity manager factory closes (and
+ * {@code create-drop} drops the tables). The phase is below the web server's, so the writer starts before
+ * requests are accepted and drains after the last request has finished.
+ */
+@Component
+public class AttendanceWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(AttendanceWriter.class);
+
+    private static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
+
+    public record PendingMark(int userId, LocalDate date, LocalTime time) {
+    }
+
+    public record WriterStats(int queueDepth, long enqueued, long written, long duplicates, long batches,
+            long failures, long spilled, double avgFlushMillis, double maxFlushMillis) {
+    }
+
+    private static final String INSERT_SQL = "insert into attendance (user_id, date, time) values (?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FaceMetrics faceMetrics;
+
+    @Autowired
+    private AttendanceDayCache dayCache;
+
+    @Value("${face.attendance.batch-size:100}")
+    private int batchSize;
+
+    @Value("${face.attendance.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${face.attendance.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${face.attendance.spill-file:attendance-spill.csv}")
+    private String spillPath;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private BlockingQueue<PendingMark> queue;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void start() {
+        try {
+            replaySpillFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "attendance-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        if (flusher == null)
+            return;
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingMark> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            try {
+                flush(remaining);
+            } catch (RuntimeException e) {
+                spill(remaining);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+
+    /** Queues the row; writes it on the caller's thread if the queue is full or the writer is stopped. */
+    public void enqueue(PendingMark mark) {
+        enqueued.incrementAndGet();
+        if (!running || !queue.offer(mark)) {
+            try {
+                flush(List.of(mark));
+            } catch (RuntimeException e) {
+                spill(List.of(mark));
+            }
+        }
+    }
+
+    public WriterStats stats() {
+        long count = batches.get();
+        return new WriterStats(queue.size(), enqueued.get(), written.get(), duplicates.get(), count,
+                failures.get(), spilled.get(), count == 0 ? 0 : totalFlushNanos.get() / 1e6 / count,
+                maxFlushNanos.get() / 1e6);
+    }
+
+    private void flushLoop() {
+        List<PendingMark> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingMark first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    PendingMark next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null)
+                        break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() drains whatever is still queued
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    failures.incrementAndGet();
+                    log.warn("Attendance flush failed, spilling {} rows", batch.size(), e);
+                    spill(batch);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMark> batch) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, toArgs(batch)));
+            written.addAndGet(batch.size());
+        } catch (DataIntegrityViolationException e) {
+            // Someone else already wrote one of these rows; retry one by one and skip the duplicates.
+            for (PendingMark mark : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, toArgs(List.of(mark)).get(0));
+                    written.incrementAndGet();
+                } catch (DataIntegrityViolationException duplicate) {
+                    duplicates.incrementAndGet();
+                }
+            }
+        }
+        faceMetrics.recordStage(FaceMetrics.DB_WRITE, start);
+        long elapsed = System.nanoTime() - start;
+        batches.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private List<Object[]> toArgs(List<PendingMark> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (PendingMark mark : batch) {
+            args.add(new Object[] { mark.userId(), Date.valueOf(mark.date()), Time.valueOf(mark.time()) });
+        }
+        return args;
+    }
+
+    private synchronized void spill(List<PendingMark> marks) {
+        File spillFile = new File(spillPath);
+        try (BufferedWriter out = Files.newBufferedWriter(spillFile.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (PendingMark mark : marks) {
+                out.write(mark.userId() + "," + mark.date() + "," + mark.time());
+                out.newLine();
+            }
+            spilled.addAndGet(marks.size());
+        } catch (IOException e) {
+            log.error("Could not write attendance spill file {}, lost {} rows", spillFile.getAbsolutePath(),
+                    marks.size(), e);
+        }
+    }
+
+    private synchronized void replaySpillFile() throws IOException {
+        File spillFile = new File(spillPath);
+        if (!spillFile.exists())
+            return;
+
+        List<PendingMark> marks = new ArrayList<>();
+        for (String line : Files.readAllLines(spillFile.toPath(), StandardCharsets.UTF_8)) {
+            String[] parts = line.split(",");
+            if (parts.length == 3)
+                marks.add(new PendingMark(Integer.parseInt(parts[0]), LocalDate.parse(parts[1]),
+                        LocalTime.parse(parts[2])));
+        }
+        try {
+            for (int i = 0; i < marks.size(); i += batchSize) {
+                flush(marks.subList(i, Math.min(marks.size(), i + batchSize)));
+            }
+            Files.delete(spillFile.toPath());
+            dayCache.refresh();
+            log.info("Replayed {} spilled attendance rows", marks.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not replay attendance spill file, keeping it", e);
+        }
+    }
+}
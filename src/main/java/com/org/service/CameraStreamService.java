@@ -0,0 +1,259 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.org.dto.FaceResult;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_videoio.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the camera open and recognizes faces continuously. A capture thread keeps grabbing so the
+ * device never hands out stale frames, decodes one frame per target interval into a small ring buffer
+ * (oldest frame dropped when full), and a worker thread runs detection and recognition on it. Marks are
+ * pushed to subscribers over server-sent events. If the camera stops delivering frames the stream backs
+ * off one frame interval per failed grab and, after {@code face.stream.max-grab-failures} in a row, stops
+ * itself and sends an {@code error} event.
+ */
+@Service
+public class CameraStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(CameraStreamService.class);
+
+    public record StreamStatus(boolean running, int cameraIndex, int targetFps, long framesCaptured,
+            long framesDropped, long framesProcessed, long marks, double processingFps, String startedAt,
+            int subscribers, String error) {
+    }
+
+    @Autowired
+    private FaceService faceService;
+
+    @Autowired
+    private FaceDetection faceDetection;
+
+    @Value("${face.stream.camera-index:0}")
+    private int cameraIndex;
+
+    @Value("${face.stream.target-fps:5}")
+    private int targetFps;
+
+    @Value("${face.stream.buffer-size:4}")
+    private int bufferSize;
+
+    @Value("${face.stream.group:default}")
+    private String group;
+
+    @Value("${face.stream.max-grab-failures:50}")
+    private int maxGrabFailures;
+
+    private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicLong framesCaptured = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private final AtomicLong framesProcessed = new AtomicLong();
+    private final AtomicLong marks = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile Instant startedAt;
+    private volatile String error;
+    private VideoCapture camera;
+    private ArrayBlockingQueue<Mat> frames;
+    private Thread captureThread;
+    private Thread workerThread;
+
+    public synchronized String start() {
+        if (camera != null)
+            return "Stream already running on camera " + cameraIndex;
+        if (captureThread != null && captureThread.isAlive())
+            return "Error: Previous stream is still releasing the camera";
+
+        camera = new VideoCapture(cameraIndex);
+        if (!camera.isOpened()) {
+            camera.release();
+            camera = null;
+            return "Error: Cannot access camera";
+        }
+
+        frames = new ArrayBlockingQueue<>(Math.max(bufferSize, 1));
+        framesCaptured.set(0);
+        framesDropped.set(0);
+        framesProcessed.set(0);
+        marks.set(0);
+        error = null;
+        running = true;
+        startedAt = Instant.now();
+
+        VideoCapture device = camera;
+        captureThread = new Thread(() -> captureLoop(device), "camera-capture");
+        captureThread.setDaemon(true);
+        workerThread = new Thread(this::recognitionLoop, "camera-recognition");
+        workerThread.setDaemon(true);
+        captureThread.start();
+        workerThread.start();
+        return "Stream started on camera " + cameraIndex + " at " + targetFps + " fps";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stop();
+    }
+
+    public synchronized String stop() {
+        if (camera == null)
+            return "Stream is not running";
+
+        running = false;
+        captureThread.interrupt();
+        workerThread.interrupt();
+        try {
+            workerThread.join(2000);
+            captureThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // The capture thread releases the camera on its way out, so a grab() that is still blocked never
+        // has the device released underneath it.
+        if (captureThread.isAlive())
+            log.warn("Camera {} is still blocked in grab(); it is released once that returns", cameraIndex);
+        camera = null;
+
+        Mat frame;
+        while ((frame = frames.poll()) != null) {
+            frame.close();
+        }
+        return "Stream stopped after " + framesProcessed.get() + " frames";
+    }
+
+    public StreamStatus status() {
+        double seconds = startedAt == null ? 0 : (System.currentTimeMillis() - startedAt.toEpochMilli()) / 1000.0;
+        return new StreamStatus(running, cameraIndex, targetFps, framesCaptured.get(), framesDropped.get(),
+                framesProcessed.get(), marks.get(), seconds > 0 ? framesProcessed.get() / seconds : 0,
+                startedAt == null ? null : startedAt.toString(), subscribers.size(), error);
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(0L);
+        subscribers.add(emitter);
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+        return emitter;
+    }
+
+    private void captureLoop(VideoCapture camera) {
+        try {
+            grabFrames(camera);
+        } finally {
+            camera.release();
+        }
+    }
+
+    private void grabFrames(VideoCapture camera) {
+        long frameIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(targetFps, 1);
+        long nextFrame = System.nanoTime();
+        int grabFailures = 0;
+        while (running) {
+            // Grabbing without decoding keeps the driver buffer drained so the retrieved frame is live.
+            if (!camera.grab()) {
+                if (++grabFailures >= maxGrabFailures) {
+                    fail("Camera " + cameraIndex + " returned no frames " + grabFailures + " times in a row");
+                    return;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(frameIntervalNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            grabFailures = 0;
+            long now = System.nanoTime();
+            if (now < nextFrame)
+                continue;
+            nextFrame = now + frameIntervalNanos;
+
+            Mat frame = new Mat();
+            if (!camera.retrieve(frame) || frame.empty() || !running) {
+                frame.close();
+                continue;
+            }
+            framesCaptured.incrementAndGet();
+            while (!frames.offer(frame)) {
+                Mat stale = frames.poll();
+                if (stale != null) {
+                    stale.close();
+                    framesDropped.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private void recognitionLoop() {
+        FaceTracker tracker = faceDetection.newTracker();
+        while (running) {
+            Mat colorFrame;
+            try {
+                colorFrame = frames.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            // Detection, tracking and cropping allocate native rects and Mats per frame; free them per frame
+            // instead of letting an all-day stream wait for GC.
+            try (PointerScope scope = new PointerScope()) {
+                Mat frame = new Mat();
+                cvtColor(colorFrame, frame, COLOR_BGR2GRAY);
+                List<FaceResult> results = faceService.recognizeAllFaces(frame, group,
+                        FaceService.CAMERA_CONFIDENCE_THRESHOLD, tracker);
+                for (FaceResult result : results) {
+                    if (FaceResult.MARKED.equals(result.status())) {
+                        marks.incrementAndGet();
+                        publish("attendance", result);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Stream recognition failed", e);
+            } finally {
+                colorFrame.close();
+                framesProcessed.incrementAndGet();
+            }
+        }
+    }
+
+    /** Records the error, tells subscribers and stops the stream from a separate thread. */
+    private void fail(String message) {
+        log.warn("Stream stopped: {}", message);
+        error = message;
+        publish("error", message);
+        Thread stopper = new Thread(this::stop, "camera-stop");
+        stopper.setDaemon(true);
+        stopper.start();
+    }
+
+    private void publish(String event, Object data) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(emitter);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.org.dto.EnrollmentReport;
+import com.org.dto.EnrollmentReport.UserEnrollment;
+import com.org.service.ImageQuality.Assessment;
+
+import org.bytedeco.javacpp.Pointer;
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+import org.bytedeco.opencv.opencv_face.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Enrolls users in bulk from a zip or tar stream of {@code user<N>/*.jpg} entries. Entries are decoded in
+ * memory as they arrive and run through face detection and the quality gate on a worker pool; accepted
+ * faces become histograms that are appended to the group's shard every {@code face.enroll.flush-every}
+ * faces. Only a few encoded images and one batch of histograms are held at a time, so apart from the model
+ * itself memory does not grow with the archive.
+ */
+@Service
+public class EnrollmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(EnrollmentService.class);
+
+    public static final String TOO_LARGE = "too_large";
+    public static final String OTHER_GROUP = "other_group";
+
+    /** {@code user<N>/<image>}, optionally below a top-level folder. */
+    private static final Pattern USER_IMAGE = Pattern.compile("(?:.*/)?user(\\d{1,9})/([^/\\\\]+\\.(?:jpg|png))");
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Autowired
+    private ImageQuality imageQuality;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Value("${face.training.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${face.enroll.max-image-bytes:10485760}")
+    private int maxImageBytes;
+
+    @Value("${face.enroll.keep-images:true}")
+    private boolean keepImages;
+
+    @Value("${face.enroll.flush-every:256}")
+    private int flushEvery;
+
+    private record Sample(int label, float[] histogram) {
+    }
+
+    private record Parameters(int radius, int neighbors, int gridX, int gridY, double threshold) {
+    }
+
+    /** Per-user counts; only touched under its own lock since workers finish images in any order. */
+    private static final class UserTally {
+        final int userId;
+        final boolean known;
+        final boolean allowed;
+        final List<Long> hashes = new ArrayList<>();
+        final Map<String, Integer> rejected = new TreeMap<>();
+        int accepted;
+        boolean registered; // only read and set by the thread that publishes
+
+        UserTally(int userId, boolean known, boolean allowed) {
+            this.userId = userId;
+            this.known = known;
+            this.allowed = allowed;
+        }
+
+        synchronized void accept() {
+            accepted++;
+        }
+
+        synchronized void reject(String reason) {
+            rejected.merge(reason, 1, Integer::sum);
+        }
+
+        synchronized int rejectedCount() {
+            return rejected.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    /**
+     * Reads the archive to the end and enrolls every {@code user<N>} folder into {@code group}. Unknown users
+     * are added to the user directory once a batch with one of their faces has been published; users that
+     * belong to another group are rejected. Faces accepted before a truncated or failing upload are still
+     * published, so the model matches the images kept on disk.
+     */
+    public EnrollmentReport enroll(String group, InputStream body) throws IOException {
+        long start = System.nanoTime();
+        File groupDir = trainingService.getGroupDir(group);
+        Parameters parameters = parameters(modelRegistry.current().model(group));
+
+        // Per-thread native objects, collected so they can be released once the workers are done.
+        List<Pointer> natives = Collections.synchronizedList(new ArrayList<>());
+        String cascadePath = modelRegistry.getCascadeFile().getAbsolutePath();
+        ThreadLocal<CascadeClassifier> detectors = ThreadLocal.withInitial(
+                () -> track(natives, new CascadeClassifier(cascadePath)));
+        ThreadLocal<LBPHFaceRecognizer> extractors = ThreadLocal.withInitial(() -> track(natives,
+                LBPHFaceRecognizer.create(parameters.radius(), parameters.neighbors(), parameters.gridX(),
+                        parameters.gridY(), parameters.threshold())));
+
+        int parallelism = parallelism();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        // Bounds memory to a couple of encoded images per worker, whatever the archive size.
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        AtomicReference<Exception> workerFailure = new AtomicReference<>();
+        List<Sample> staged = new ArrayList<>();
+        Map<Integer, UserTally> tallies = new TreeMap<>();
+        List<Integer> newUsers = new ArrayList<>();
+        long modelVersion = modelRegistry.current().version();
+        int entries = 0;
+        int skipped = 0;
+
+        IOException error = null;
+        try (ArchiveReader archive = ArchiveReader.open(body)) {
+            ArchiveReader.Entry entry;
+            while ((entry = archive.next()) != null && workerFailure.get() == null) {
+                List<Sample> batch = drain(staged, flushEvery);
+                if (!batch.isEmpty())
+                    modelVersion = publish(group, parameters, batch, tallies, newUsers);
+                entries++;
+                Matcher matcher = USER_IMAGE.matcher(entry.name());
+                if (!matcher.matches() || entry.name().contains("__MACOSX/") || matcher.group(2).startsWith(".")) {
+                    skipped++;
+                    continue;
+                }
+
+                int userId = Integer.parseInt(matcher.group(1));
+                UserTally tally = tallies.computeIfAbsent(userId, id -> tally(id, group));
+                if (!tally.allowed) {
+                    tally.reject(OTHER_GROUP);
+                    continue;
+                }
+                byte[] bytes = archive.read(maxImageBytes);
+                if (bytes == null) {
+                    tally.reject(TOO_LARGE);
+                    continue;
+                }
+
+                inFlight.acquire();
+                String fileName = matcher.group(2);
+                File userDir = new File(groupDir, "user" + userId);
+                workers.execute(() -> {
+                    try {
+                        enrollImage(bytes, fileName, userDir, tally, detectors.get(), extractors.get(), staged);
+                    } catch (Exception e) {
+                        workerFailure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = new IOException("Interrupted during enrollment", e);
+        } finally {
+            workers.shutdown();
+            try {
+                if (workers.awaitTermination(10, TimeUnit.MINUTES))
+                    natives.forEach(Pointer::close);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (error == null && workerFailure.get() != null)
+            error = new IOException("Enrollment failed: " + workerFailure.get().getMessage(), workerFailure.get());
+
+        List<Sample> rest = drain(staged, 1);
+        if (!rest.isEmpty()) {
+            try {
+                modelVersion = publish(group, parameters, rest, tallies, newUsers);
+            } catch (IOException e) {
+                if (error == null)
+                    error = e;
+            }
+        }
+        if (error != null)
+            throw error;
+
+        int accepted = 0;
+        int rejected = 0;
+        Map<String, Integer> rejectedByReason = new TreeMap<>();
+        List<UserEnrollment> perUser = new ArrayList<>();
+        for (UserTally tally : tallies.values()) {
+            synchronized (tally) {
+                accepted += tally.accepted;
+                rejected += tally.rejectedCount();
+                tally.rejected.forEach((reason, count) -> rejectedByReason.merge(reason, count, Integer::sum));
+                perUser.add(new UserEnrollment(tally.userId, tally.accepted, tally.rejectedCount(),
+                        new TreeMap<>(tally.rejected)));
+            }
+        }
+        EnrollmentReport report = new EnrollmentReport(group, entries, accepted, rejected, skipped, rejectedByReason,
+                perUser, newUsers, modelVersion,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Enrollment finished: {} faces accepted, {} rejected, {} new users in group {}", accepted, rejected,
+                newUsers.size(), group);
+        return report;
+    }
+
+    /** Unknown users are enrolled into the group; a user already enrolled in another group is not moved. */
+    private UserTally tally(int userId, String group) {
+        if (!userDirectory.contains(userId))
+            return new UserTally(userId, false, true);
+        return new UserTally(userId, true, userDirectory.groupOf(userId).equals(group));
+    }
+
+    /** The shard's LBPH parameters, or OpenCV's defaults when the group has no model yet. */
+    private static Parameters parameters(LbphModel shard) {
+        if (shard != null)
+            return new Parameters(shard.getRadius(), shard.getNeighbors(), shard.getGridX(), shard.getGridY(),
+                    shard.getThreshold());
+        try (LBPHFaceRecognizer defaults = LBPHFaceRecognizer.create()) {
+            return new Parameters(defaults.getRadius(), defaults.getNeighbors(), defaults.getGridX(),
+                    defaults.getGridY(), defaults.getThreshold());
+        }
+    }
+
+    private static <T extends Pointer> T track(List<Pointer> natives, T pointer) {
+        natives.add(pointer);
+        return pointer;
+    }
+
+    private void enrollImage(byte[] bytes, String fileName, File userDir, UserTally tally,
+            CascadeClassifier faceDetector, LBPHFaceRecognizer extractor, List<Sample> staged) throws IOException {
+        float[] histogram;
+        try (PointerScope scope = new PointerScope()) {
+            Mat image = imdecode(new Mat(bytes), IMREAD_GRAYSCALE);
+            if (image.empty()) {
+                tally.reject(ImageQuality.UNREADABLE);
+                return;
+            }
+
+            // Same crop and gate as training and compaction.
+            RectVector faces = new RectVector();
+            faceDetector.detectMultiScale(image, faces);
+            if (faces.size() == 0) {
+                tally.reject(ImageQuality.NO_FACE);
+                return;
+            }
+            Rect face = faces.get(0);
+            Mat faceROI = new Mat();
+            resize(new Mat(image, face), faceROI, new Size(160, 160));
+
+            Assessment assessment = imageQuality.assess(faceROI, face.width());
+            if (!assessment.accepted()) {
+                tally.reject(assessment.rejection());
+                return;
+            }
+            // Near-duplicates are judged within the upload; the first image of a cluster wins.
+            synchronized (tally) {
+                if (imageQuality.isNearDuplicate(assessment.hash(), tally.hashes)) {
+                    tally.reject(ImageQuality.DUPLICATE);
+                    return;
+                }
+                tally.hashes.add(assessment.hash());
+            }
+            histogram = LbphModel.histogramOf(extractor, faceROI);
+        }
+
+        if (keepImages)
+            keepImage(userDir, fileName, bytes);
+        synchronized (staged) {
+            staged.add(new Sample(tally.userId, histogram));
+        }
+        tally.accept();
+    }
+
+    /** Writes the original image into the user's folder so later full retrains include it. */
+    private void keepImage(File userDir, String fileName, byte[] bytes) throws IOException {
+        Files.createDirectories(userDir.toPath());
+        int dot = fileName.lastIndexOf('.');
+        for (int n = 0; ; n++) {
+            String name = n == 0 ? fileName : fileName.substring(0, dot) + "-" + n + fileName.substring(dot);
+            try {
+                Files.write(new File(userDir, name).toPath(), bytes, StandardOpenOption.CREATE_NEW);
+                return;
+            } catch (FileAlreadyExistsException e) {
+                // Keep the existing image and try the next name.
+            }
+        }
+    }
+
+    /** Takes everything staged once at least {@code min} samples are waiting, else nothing. */
+    private static List<Sample> drain(List<Sample> staged, int min) {
+        synchronized (staged) {
+            if (staged.isEmpty() || staged.size() < min)
+                return List.of();
+            List<Sample> batch = new ArrayList<>(staged);
+            staged.clear();
+            return batch;
+        }
+    }
+
+    /**
+     * Appends one batch of histograms to the shard with a single model write, then adds the unknown users
+     * that now have a face in the model to the directory.
+     */
+    private long publish(String group, Parameters parameters, List<Sample> samples, Map<Integer, UserTally> tallies,
+            List<Integer> newUsers) throws IOException {
+        int length = samples.get(0).histogram().length;
+        int[] labels = new int[samples.size()];
+        float[] histograms = new float[samples.size() * length];
+        for (int i = 0; i < samples.size(); i++) {
+            labels[i] = samples.get(i).label();
+            System.arraycopy(samples.get(i).histogram(), 0, histograms, i * length, length);
+        }
+        LbphModel batch = new LbphModel(parameters.radius(), parameters.neighbors(), parameters.gridX(),
+                parameters.gridY(), parameters.threshold(), length, labels, histograms);
+        long version = trainingService.appendToShard(group, batch).version();
+
+        for (int label : labels) {
+            UserTally tally = tallies.get(label);
+            if (!tally.known && !tally.registered) {
+                userDirectory.save(tally.userId, "User " + tally.userId, group);
+                tally.registered = true;
+                newUsers.add(tally.userId);
+            }
+        }
+        return version;
+    }
+
+    private int parallelism() {
+        return configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -0,0 +1,96 @@
+package com.org.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+
+/**
+ * Configurable Haar detection. Uploaded images and group photos are searched at full resolution so small
+ * faces in large shots are still found; camera frames can be shrunk by {@code face.detect.camera-downscale}
+ * before the cascade runs. The returned rectangles are always in the coordinates of the original frame.
+ */
+@Component
+public class FaceDetection {
+
+    @Value("${face.detect.camera-downscale:1.0}")
+    private double cameraDownscale;
+
+    @Value("${face.detect.scale-factor:1.1}")
+    private double scaleFactor;
+
+    @Value("${face.detect.min-neighbors:3}")
+    private int minNeighbors;
+
+    @Value("${face.detect.min-size:40}")
+    private int minSize;
+
+    @Value("${face.detect.max-size:0}")
+    private int maxSize;
+
+    @Value("${face.track.detect-every:5}")
+    private int detectEvery;
+
+    /** Full-resolution detection with the configured settings. */
+    public RectVector detect(CascadeClassifier detector, Mat gray) {
+        return detect(detector, gray, minSize, maxSize, 1.0);
+    }
+
+    /** Detection restricted to faces between {@code minFace} and {@code maxFace} pixels (0 = unbounded). */
+    public RectVector detect(CascadeClassifier detector, Mat gray, int minFace, int maxFace) {
+        return detect(detector, gray, minFace, maxFace, 1.0);
+    }
+
+    /** Camera-frame detection, on a copy shrunk by {@code face.detect.camera-downscale}. */
+    RectVector detectCameraFrame(CascadeClassifier detector, Mat gray) {
+        return detect(detector, gray, minSize, maxSize, cameraScale());
+    }
+
+    /** Camera-frame detection restricted to faces between {@code minFace} and {@code maxFace} pixels. */
+    RectVector detectCameraFrame(CascadeClassifier detector, Mat gray, int minFace, int maxFace) {
+        return detect(detector, gray, minFace, maxFace, cameraScale());
+    }
+
+    public FaceTracker newTracker() {
+        return new FaceTracker(this, detectEvery);
+    }
+
+    private double cameraScale() {
+        return cameraDownscale > 0 && cameraDownscale < 1 ? cameraDownscale : 1.0;
+    }
+
+    private RectVector detect(CascadeClassifier detector, Mat gray, int minFace, int maxFace, double scale) {
+        RectVector faces = new RectVector();
+        if (scale == 1.0) {
+            runCascade(detector, gray, faces, minFace, maxFace);
+            return faces;
+        }
+
+        try (Mat small = new Mat();
+                Size smallSize = new Size((int) Math.round(gray.cols() * scale), (int) Math.round(gray.rows() * scale))) {
+            resize(gray, small, smallSize, 0, 0, INTER_AREA);
+            RectVector found = new RectVector();
+            runCascade(detector, small, found, (int) Math.round(minFace * scale), (int) Math.round(maxFace * scale));
+
+            // Map back to full-resolution coordinates.
+            for (long i = 0; i < found.size(); i++) {
+                Rect r = found.get(i);
+                int x = (int) Math.round(r.x() / scale);
+                int y = (int) Math.round(r.y() / scale);
+                int w = Math.min((int) Math.round(r.width() / scale), gray.cols() - x);
+                int h = Math.min((int) Math.round(r.height() / scale), gray.rows() - y);
+                faces.push_back(new Rect(x, y, w, h));
+            }
+        }
+        return faces;
+    }
+
+    private void runCascade(CascadeClassifier detector, Mat image, RectVector faces, int minFace, int maxFace) {
+        try (Size min = new Size(minFace, minFace); Size max = new Size(maxFace, maxFace)) {
+            detector.detectMultiScale(image, faces, scaleFactor, minNeighbors, 0, min, max);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.org.service;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the recognition pipeline, exported through Actuator ({@code /actuator/prometheus}).
+ * <ul>
+ * <li>{@code face.stage} timer, tagged by stage: decode, gray, detect, crop, predict, db_write</li>
+ * <li>{@code face.faces} counter, tagged by outcome: detected, recognized, rejected, already_marked</li>
+ * <li>{@code face.confidence} distribution of LBPH distances, for tuning the 80/98 thresholds</li>
+ * </ul>
+ */
+@Component
+public class FaceMetrics {
+
+    public static final String DECODE = "decode";
+    public static final String GRAY = "gray";
+    public static final String DETECT = "detect";
+    public static final String CROP = "crop";
+    public static final String PREDICT = "predict";
+    public static final String DB_WRITE = "db_write";
+
+    private final Map<String, Timer> stages = new HashMap<>();
+    private final Counter detected;
+    private final Counter recognized;
+    private final Counter rejected;
+    private final Counter alreadyMarked;
+    private final DistributionSummary confidence;
+
+    public FaceMetrics(MeterRegistry registry) {
+        for (String stage : new String[] { DECODE, GRAY, DETECT, CROP, PREDICT, DB_WRITE }) {
+            stages.put(stage, Timer.builder("face.stage")
+                    .description("Time spent in one stage of the recognition pipeline")
+                    .tag("stage", stage)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        detected = faces(registry, "detected");
+        recognized = faces(registry, "recognized");
+        rejected = faces(registry, "rejected");
+        alreadyMarked = faces(registry, "already_marked");
+        confidence = DistributionSummary.builder("face.confidence")
+                .description("LBPH distance of the best match; lower is more similar")
+                .serviceLevelObjectives(20, 40, 60, 70, 80, 90, 98, 110, 130, 160, 200)
+                .register(registry);
+    }
+
+    /** Records the time elapsed since {@code startNanos} against the given stage. */
+    public void recordStage(String stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void facesDetected(long count) {
+        detected.increment(count);
+    }
+
+    public void prediction(double distance) {
+        confidence.record(distance);
+    }
+
+    /** Counts the threshold decision for one face and returns whether it was accepted. */
+    public boolean accept(double distance, double threshold) {
+        boolean accepted = distance < threshold;
+        (accepted ? recognized : rejected).increment();
+        return accepted;
+    }
+
+    public void alreadyMarked(long count) {
+        alreadyMarked.increment(count);
+    }
+
+    private static Counter faces(MeterRegistry registry, String outcome) {
+        return Counter.builder("face.faces")
+                .description("Faces seen by the recognition pipeline, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
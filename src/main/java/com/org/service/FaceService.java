@@ -1,14 +1,19 @@
 package com.org.service;
 
-import org.springframework.core.io.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import com.org.model.Attendance;
-import com.org.repository.AttendanceRepository;
+import com.org.dto.Candidate;
+import com.org.dto.FaceResult;
+import com.org.dto.RecognitionResult;
+import com.org.service.ImageQuality.Assessment;
+import com.org.service.RecognizerPool.FaceEngine;
 
+import org.bytedeco.javacpp.PointerScope;
 import org.bytedeco.opencv.opencv_core.*;
 import org.bytedeco.opencv.opencv_videoio.*;
 import org.bytedeco.opencv.opencv_objdetect.*;
@@ -20,91 +25,87 @@ import static org.bytedeco.opencv.global.opencv_core.*;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.IntBuffer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 @Service
 public class FaceService {
 
+    private static final Logger log = LoggerFactory.getLogger(FaceService.class);
+
     @Autowired
-    private AttendanceRepository attendanceRepository;
+    private AttendanceService attendanceService;
 
-    private static final Map<Integer, String> userLabelMap = Map.of(
-            1, "Mudit Tiwari",
-            2, "Rohit Sharma",
-            3, "Virat Kohli");
+    @Autowired
+    private ModelRegistry modelRegistry;
 
-    public String recognizeAndMark() {
-        try {
+    @Autowired
+    private RecognizerPool recognizerPool;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private FaceMetrics faceMetrics;
+
+    @Autowired
+    private FaceDetection faceDetection;
+
+    @Autowired
+    private ImageQuality imageQuality;
+
+    public static final double CAMERA_CONFIDENCE_THRESHOLD = 98.0;
+    public static final double IMAGE_CONFIDENCE_THRESHOLD = 80;
+
+    @Value("${face.batch.max-images:200}")
+    private int maxBatchImages;
+
+    @Value("${face.batch.max-image-bytes:10485760}")
+    private int maxBatchImageBytes;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    /** Searches only {@code group}'s model shard. */
+    public String recognizeAndMark(String group) {
+        FaceEngine engine = null;
+        try (PointerScope scope = new PointerScope()) {
             VideoCapture camera = new VideoCapture(0);
             if (!camera.isOpened())
                 return "Error, Can't access camera";
 
-            Resource haarResource = new ClassPathResource("haarcascade_frontalface_alt.xml");
-            File haarFile = createTempFile(haarResource, "haarcascade_frontalface_alt.xml");
-            CascadeClassifier faceDetector = new CascadeClassifier(haarFile.getAbsolutePath());
-            if (faceDetector.empty()) {
-                camera.release();
-                return "Error, Failed to load Haar Cascade classifier";
-            }
-
-            File modelFile = new File("src/main/resources/trained_faces/lbph_model.xml");
-            if (!modelFile.exists()) {
+            engine = recognizerPool.borrow();
+            if (!engine.hasRecognizer(group)) {
                 camera.release();
-                return "Model not found, please train first by going to /api/face/train";
+                return "Model not found, please train first by going to /api/face/train?group=" + group;
             }
 
-            Resource modelResource = new ClassPathResource("trained_faces/lbph_model.xml");
-            File tempModelFile = createTempFile(modelResource, "lbph_model.xml");
-            LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
-            recognizer.read(tempModelFile.getAbsolutePath());
-
             Mat colorFrame = new Mat();
             camera.read(colorFrame);
-            Mat frame = new Mat();
+            long grayStart = System.nanoTime();
+            Mat frame = engine.grayScratch();
             cvtColor(colorFrame, frame, COLOR_BGR2GRAY);
+            faceMetrics.recordStage(FaceMetrics.GRAY, grayStart);
 
-            RectVector faces = new RectVector();
-            faceDetector.detectMultiScale(frame, faces);
-            System.out.println("Captured frame size: " + frame.size().width() + "x" + frame.size().height());
-            System.out.println("Faces detected: " + faces.size());
+            RectVector faces = detectCameraFrame(engine, frame);
+            if (log.isDebugEnabled())
+                log.debug("Captured frame size: {}x{}, faces detected: {}", frame.cols(), frame.rows(), faces.size());
 
             for (int i = 0; i < faces.size(); i++) {
-                Rect face = faces.get(i);
-                int x = Math.max(face.x() - 10, 0);
-                int y = Math.max(face.y() - 10, 0);
-                int width = Math.min(face.width() + 20, frame.cols() - x);
-                int height = Math.min(face.height() + 20, frame.rows() - y);
-                Rect paddedFace = new Rect(x, y, width, height);
-                Mat faceROI = new Mat(frame, paddedFace);
-                resize(faceROI, faceROI, new Size(160, 160));
-
-                int[] label = new int[1];
-                double[] confidence = new double[1];
-                recognizer.predict(faceROI, label, confidence);
-
-                System.out.println("Predicted User ID: " + label[0] + ", Confidence: " + confidence[0]);
-
-                if (confidence[0] < 98.0) {
-                    int userId = label[0];
-                    LocalDate date = LocalDate.now();
-
-                    if (!attendanceRepository.existsByUserIdAndDate(userId, date)) {
-                        Attendance att = new Attendance();
-                        att.setUserId(userId);
-                        att.setDate(date);
-                        att.setTime(LocalTime.now());
-                        attendanceRepository.save(att);
-
-                        camera.release();
-                        String name = userLabelMap.getOrDefault(userId, "Unknown");
+                Prediction prediction = predict(engine, group, frame, faces.get(i));
+
+                if (faceMetrics.accept(prediction.confidence(), CAMERA_CONFIDENCE_THRESHOLD)) {
+                    int userId = prediction.label();
+                    camera.release();
+                    if (attendanceService.markIfAbsent(userId)) {
+                        String name = userDirectory.nameOf(userId);
                         return "Attendance marked for: " + name + " (ID: " + userId + ")";
                     } else {
-                        camera.release();
                         return "Already marked today for User ID: " + userId;
                     }
                 }
@@ -115,144 +116,368 @@ public class FaceService {
 
         } catch (Exception e) {
             return "Error: " + e.getMessage();
+        } finally {
+            recognizerPool.release(engine);
         }
     }
 
-    public String recognizeFromImage(MultipartFile imageFile) {
+    public String recognizeFromImage(MultipartFile imageFile, String group) {
         try {
-            Path tempImage = Files.createTempFile("uploaded_", imageFile.getOriginalFilename());
-            Files.write(tempImage, imageFile.getBytes());
-            System.out.println("Uploaded image saved to: " + tempImage.toFile().getAbsolutePath());
-
-            Resource haarResource = new ClassPathResource("haarcascade_frontalface_alt.xml");
-            File haarFile = createTempFile(haarResource, "haarcascade_frontalface_alt.xml");
-            CascadeClassifier faceDetector = new CascadeClassifier(haarFile.getAbsolutePath());
-            if (faceDetector.empty())
-                return "Error: Failed to load Haar Cascade classifier";
-
-            File modelFile = new File("src/main/resources/trained_faces/lbph_model.xml");
-            if (!modelFile.exists())
-                return "Model not found; please train first by calling /api/face/train";
-
-            Resource modelResource = new ClassPathResource("trained_faces/lbph_model.xml");
-            File tempModelFile = createTempFile(modelResource, "lbph_model.xml");
-            LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
-            recognizer.read(tempModelFile.getAbsolutePath());
-
-            Mat image = imread(tempImage.toFile().getAbsolutePath());
-            if (image.empty())
-                return "Error: Invalid img file";
+            Prediction prediction = predictFirstFace(imageFile.getBytes(), group);
+            if (prediction == null)
+                return "Model not found; please train first by calling /api/face/train?group=" + group;
+
+            if (prediction.faceFound() && faceMetrics.accept(prediction.confidence(), IMAGE_CONFIDENCE_THRESHOLD)) {
+                int userId = prediction.label();
+                if (attendanceService.markIfAbsent(userId)) {
+                    String name = userDirectory.nameOf(userId);
+                    return "Attendance marked for: " + name + " (ID: " + userId + ")";
+                } else {
+                    return "Already marked today for User ID: " + userId;
+                }
+            }
+
+            return "Face not recognized";
 
-            if (image.channels() > 1) {
-                Mat gray = new Mat();
-                cvtColor(image, gray, COLOR_BGR2GRAY);
-                image = gray;
+        } catch (Exception e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Collects the uploaded images and the image entries of an optional zip archive into one batch. Zip
+     * entries are inflated through a bounded read, so an entry over {@code face.batch.max-image-bytes} is
+     * rejected before it is held in memory, whatever size the archive claims.
+     */
+    public List<RecognitionResult> recognizeBatch(List<MultipartFile> imageFiles, MultipartFile archive,
+            String group) throws IOException {
+        Map<String, byte[]> images = new LinkedHashMap<>();
+        if (imageFiles != null) {
+            for (MultipartFile imageFile : imageFiles) {
+                checkBatchSize(images.size() + 1);
+                checkImageSize(imageFile.getOriginalFilename(), imageFile.getSize());
+                images.put(uniqueName(images, imageFile.getOriginalFilename()), imageFile.getBytes());
+            }
+        }
+        if (archive != null && !archive.isEmpty()) {
+            try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+                ZipEntry entry;
+                while ((entry = zip.getNextEntry()) != null) {
+                    String name = entry.getName().toLowerCase();
+                    if (entry.isDirectory() || !(name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")))
+                        continue;
+                    checkBatchSize(images.size() + 1);
+                    byte[] bytes = zip.readNBytes(maxBatchImageBytes + 1);
+                    checkImageSize(entry.getName(), bytes.length);
+                    images.put(uniqueName(images, entry.getName()), bytes);
+                }
             }
+        }
+        if (images.isEmpty())
+            throw new IOException("No images uploaded");
+        return recognizeBatch(images, group);
+    }
 
-            RectVector faces = new RectVector();
-            faceDetector.detectMultiScale(image, faces);
+    private void checkBatchSize(int images) throws IOException {
+        if (images > maxBatchImages)
+            throw new IOException("Batch too large, limit is " + maxBatchImages + " images");
+    }
 
-            if (faces.size() > 0) {
-                Rect face = faces.get(0);
-                int x = Math.max(face.x() - 10, 0);
-                int y = Math.max(face.y() - 10, 0);
-                int width = Math.min(face.width() + 20, image.cols() - x);
-                int height = Math.min(face.height() + 20, image.rows() - y);
-                Rect paddedFace = new Rect(x, y, width, height);
-                Mat faceROI = new Mat(image, paddedFace);
-                resize(faceROI, faceROI, new Size(160, 160));
+    private void checkImageSize(String name, long bytes) throws IOException {
+        if (bytes > maxBatchImageBytes)
+            throw new IOException("Image " + name + " is larger than the limit of " + maxBatchImageBytes + " bytes");
+    }
 
-                int[] label = new int[1];
-                double[] confidence = new double[1];
-                recognizer.predict(faceROI, label, confidence);
+    private String uniqueName(Map<String, byte[]> images, String name) {
+        String base = name != null ? name : "image";
+        String unique = base;
+        for (int i = 2; images.containsKey(unique); i++) {
+            unique = base + "#" + i;
+        }
+        return unique;
+    }
+
+    /**
+     * Recognizes many uploaded images in parallel and marks every recognized user in one transaction.
+     * Each image still goes through the same detect/crop/predict path as {@link #recognizeFromImage}.
+     */
+    public List<RecognitionResult> recognizeBatch(Map<String, byte[]> images, String group) throws IOException {
+        checkBatchSize(images.size());
+        if (!modelRegistry.current().hasModel(group))
+            throw new IOException("Model not found; please train first by calling /api/face/train?group=" + group);
+
+        Map<String, Future<Prediction>> pending = new LinkedHashMap<>();
+        Map<String, Prediction> predictions = new LinkedHashMap<>();
+        Map<String, String> failures = new HashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, byte[]> entry : images.entrySet()) {
+                pending.put(entry.getKey(), executor.submit(() -> predictFirstFace(entry.getValue(), group)));
+            }
+            for (Map.Entry<String, Future<Prediction>> entry : pending.entrySet()) {
+                try {
+                    predictions.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    log.warn("Batch image {} failed: {}", entry.getKey(), e.getCause().getMessage());
+                    failures.put(entry.getKey(), RecognitionResult.ERROR);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while recognizing batch", e);
+                }
+            }
+        }
 
-                System.out.println("Predicted User ID: " + label[0] + ", Confidence: " + confidence[0]);
+        Set<Integer> recognized = new LinkedHashSet<>();
+        for (Prediction prediction : predictions.values()) {
+            if (prediction != null && prediction.faceFound()
+                    && faceMetrics.accept(prediction.confidence(), IMAGE_CONFIDENCE_THRESHOLD))
+                recognized.add(prediction.label());
+        }
+        Set<Integer> marked = attendanceService.markAll(recognized);
+
+        List<RecognitionResult> results = new ArrayList<>(images.size());
+        Set<Integer> reported = new HashSet<>();
+        for (String name : images.keySet()) {
+            Prediction prediction = predictions.get(name);
+            if (prediction == null) {
+                results.add(RecognitionResult.failed(name, failures.getOrDefault(name, RecognitionResult.ERROR)));
+            } else if (!prediction.faceFound()) {
+                results.add(RecognitionResult.failed(name, RecognitionResult.NO_FACE));
+            } else {
+                int userId = prediction.label();
+                String status;
+                if (prediction.confidence() >= IMAGE_CONFIDENCE_THRESHOLD)
+                    status = RecognitionResult.NOT_RECOGNIZED;
+                else if (marked.contains(userId) && reported.add(userId))
+                    status = RecognitionResult.MARKED;
+                else
+                    status = RecognitionResult.ALREADY_MARKED;
+                results.add(new RecognitionResult(name, userId, userDirectory.nameOf(userId),
+                        prediction.confidence(), status));
+            }
+        }
+        return results;
+    }
 
-                if (confidence[0] < 80) {
-                    int userId = label[0];
-                    LocalDate date = LocalDate.now();
+    /**
+     * Recognizes every face in a single (group) photo. Faces are predicted in parallel, each on its own
+     * pooled engine; when the same user shows up more than once only the closest match counts.
+     */
+    public List<FaceResult> recognizeAllFaces(MultipartFile imageFile, String group) throws IOException {
+        try (PointerScope scope = new PointerScope()) {
+            Mat image = readGrayImage(imageFile.getBytes(), new Mat());
+            return recognizeAllFaces(image, group, IMAGE_CONFIDENCE_THRESHOLD, null);
+        }
+    }
 
-                    if (!attendanceRepository.existsByUserIdAndDate(userId, date)) {
-                        Attendance att = new Attendance();
-                        att.setUserId(userId);
-                        att.setDate(date);
-                        att.setTime(LocalTime.now());
-                        attendanceRepository.save(att);
-                        String name = userLabelMap.getOrDefault(userId, "Unknown");
-                        return "Attendance marked for: " + name + " (ID: " + userId + ")";
-                    } else {
-                        return "Already marked today for User ID: " + userId;
+    /**
+     * Same as {@link #recognizeAllFaces(MultipartFile, String)} for an already decoded gray frame. When a
+     * {@code tracker} is given (camera loops), faces are followed from the previous frame and full detection
+     * only runs every few frames.
+     */
+    public List<FaceResult> recognizeAllFaces(Mat image, String group, double threshold, FaceTracker tracker)
+            throws IOException {
+        List<Rect> faces = new ArrayList<>();
+        FaceEngine detector = recognizerPool.borrow();
+        try {
+            if (!detector.hasRecognizer(group))
+                throw new IOException("Model not found; please train first by calling /api/face/train?group=" + group);
+            RectVector detected = detect(detector, image, tracker);
+            for (int i = 0; i < detected.size(); i++) {
+                faces.add(detected.get(i));
+            }
+        } finally {
+            // Give the detector back before predicting so the parallel predictions can use it.
+            recognizerPool.release(detector);
+        }
+        log.debug("Faces detected: {}", faces.size());
+
+        List<Future<Prediction>> pending = new ArrayList<>(faces.size());
+        List<Prediction> predictions = new ArrayList<>(faces.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Rect face : faces) {
+                pending.add(executor.submit(() -> {
+                    FaceEngine engine = recognizerPool.borrow();
+                    try (PointerScope scope = new PointerScope()) {
+                        return predict(engine, group, image, face);
+                    } finally {
+                        recognizerPool.release(engine);
                     }
+                }));
+            }
+            for (Future<Prediction> future : pending) {
+                try {
+                    predictions.add(future.get());
+                } catch (ExecutionException e) {
+                    log.warn("Face prediction failed: {}", e.getCause().getMessage());
+                    predictions.add(null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while recognizing faces", e);
                 }
             }
+        }
 
-            return "Face not recognized";
+        // Keep only the best-matching face per recognized label.
+        Map<Integer, Integer> bestFaceByLabel = new LinkedHashMap<>();
+        for (int i = 0; i < predictions.size(); i++) {
+            Prediction prediction = predictions.get(i);
+            if (prediction == null || !faceMetrics.accept(prediction.confidence(), threshold))
+                continue;
+            Integer best = bestFaceByLabel.get(prediction.label());
+            if (best == null || prediction.confidence() < predictions.get(best).confidence())
+                bestFaceByLabel.put(prediction.label(), i);
+        }
+        Set<Integer> marked = attendanceService.markAll(bestFaceByLabel.keySet());
+
+        List<FaceResult> results = new ArrayList<>(faces.size());
+        for (int i = 0; i < faces.size(); i++) {
+            Rect face = faces.get(i);
+            Prediction prediction = predictions.get(i);
+            if (prediction == null) {
+                results.add(new FaceResult(face.x(), face.y(), face.width(), face.height(), null, null, null,
+                        FaceResult.ERROR));
+                continue;
+            }
 
-        } catch (Exception e) {
-            return "Error: " + e.getMessage();
+            int userId = prediction.label();
+            String status;
+            if (prediction.confidence() >= threshold)
+                status = FaceResult.NOT_RECOGNIZED;
+            else if (bestFaceByLabel.get(userId) != i)
+                status = FaceResult.DUPLICATE;
+            else if (marked.contains(userId))
+                status = FaceResult.MARKED;
+            else
+                status = FaceResult.ALREADY_MARKED;
+            results.add(new FaceResult(face.x(), face.y(), face.width(), face.height(), userId,
+                    userDirectory.nameOf(userId), prediction.confidence(), status));
         }
+        return results;
     }
 
-    public void trainModel() throws IOException {
-        File trainingDir = new File("C:/training_images");
-        if (!trainingDir.exists() || !trainingDir.isDirectory()) {
-            throw new IOException("Training directory not found: " + trainingDir.getAbsolutePath());
+    /** Ranks the k closest users for the first face in the image without marking attendance. */
+    public List<Candidate> identify(MultipartFile imageFile, int k, String group) throws IOException {
+        FaceEngine engine = recognizerPool.borrow();
+        try (PointerScope scope = new PointerScope()) {
+            if (!engine.hasRecognizer(group))
+                throw new IOException("Model not found; please train first by calling /api/face/train?group=" + group);
+
+            Mat image = readGrayImage(imageFile.getBytes(), engine.grayScratch());
+            RectVector faces = detect(engine, image);
+            if (faces.size() == 0)
+                return List.of();
+
+            List<Candidate> candidates = new ArrayList<>();
+            Mat face = cropFace(image, faces.get(0), engine.faceScratch());
+            for (HistogramIndex.Match match : engine.topK(group, face, k)) {
+                candidates.add(new Candidate(match.label(), userDirectory.nameOf(match.label()),
+                        match.distance()));
+            }
+            return candidates;
+        } finally {
+            recognizerPool.release(engine);
         }
+    }
 
-        List<Mat> imagesList = new ArrayList<>();
-        List<Integer> labelsList = new ArrayList<>();
-        CascadeClassifier faceDetector = new CascadeClassifier(
-                new ClassPathResource("haarcascade_frontalface_alt.xml").getFile().getAbsolutePath());
-
-        for (File userDir : trainingDir.listFiles(File::isDirectory)) {
-            int userId = Integer.parseInt(userDir.getName().replace("user", ""));
-            for (File imageFile : userDir.listFiles((dir, name) -> name.endsWith(".jpg") || name.endsWith(".png"))) {
-                Mat image = imread(imageFile.getAbsolutePath());
-                if (image.empty())
-                    continue;
-
-                if (image.channels() > 1) {
-                    Mat gray = new Mat();
-                    cvtColor(image, gray, COLOR_BGR2GRAY);
-                    image = gray;
-                }
+    /**
+     * Decodes the image, detects faces and predicts the first one. Returns null when the group has no model.
+     */
+    private Prediction predictFirstFace(byte[] bytes, String group) throws IOException {
+        FaceEngine engine = recognizerPool.borrow();
+        try (PointerScope scope = new PointerScope()) {
+            if (!engine.hasRecognizer(group))
+                return null;
 
-                RectVector faces = new RectVector();
-                faceDetector.detectMultiScale(image, faces);
-                if (faces.size() > 0) {
-                    Rect face = faces.get(0);
-                    Mat faceROI = new Mat(image, face);
-                    resize(faceROI, faceROI, new Size(160, 160));
-                    imagesList.add(faceROI);
-                    labelsList.add(userId);
-                }
-            }
+            Mat image = readGrayImage(bytes, engine.grayScratch());
+
+            RectVector faces = detect(engine, image);
+            if (faces.size() == 0)
+                return Prediction.NO_FACE;
+
+            return predict(engine, group, image, faces.get(0));
+        } finally {
+            recognizerPool.release(engine);
         }
+    }
 
-        if (imagesList.isEmpty())
-            throw new IOException("No valid training images found");
+    /**
+     * Decodes the uploaded bytes in memory and converts them to gray into {@code gray}, which is usually an
+     * engine's scratch Mat. The encoded and color buffers are freed before returning.
+     */
+    private Mat readGrayImage(byte[] bytes, Mat gray) throws IOException {
+        long decodeStart = System.nanoTime();
+        try (Mat encoded = new Mat(bytes); Mat image = imdecode(encoded, IMREAD_COLOR)) {
+            faceMetrics.recordStage(FaceMetrics.DECODE, decodeStart);
+            if (image.empty())
+                throw new IOException("Invalid img file");
 
-        MatVector images = new MatVector(imagesList.size());
-        for (int i = 0; i < imagesList.size(); i++) {
-            images.put(i, imagesList.get(i));
+            long grayStart = System.nanoTime();
+            cvtColor(image, gray, COLOR_BGR2GRAY);
+            faceMetrics.recordStage(FaceMetrics.GRAY, grayStart);
+            return gray;
         }
+    }
+
+    /** Crops the detected face with a small margin and resizes it to the training size. */
+    static Mat cropFace(Mat image, Rect face) {
+        return cropFace(image, face, new Mat());
+    }
 
-        Mat labels = new Mat(labelsList.size(), 1, CV_32SC1);
-        IntBuffer labelsBuf = labels.createBuffer();
-        for (int i = 0; i < labelsList.size(); i++) {
-            labelsBuf.put(i, labelsList.get(i));
+    /** Same as {@link #cropFace(Mat, Rect)}, resizing into {@code dst} instead of a new Mat. */
+    static Mat cropFace(Mat image, Rect face, Mat dst) {
+        int x = Math.max(face.x() - 10, 0);
+        int y = Math.max(face.y() - 10, 0);
+        int width = Math.min(face.width() + 20, image.cols() - x);
+        int height = Math.min(face.height() + 20, image.rows() - y);
+        try (Rect paddedFace = new Rect(x, y, width, height);
+                Mat faceROI = new Mat(image, paddedFace);
+                Size size = new Size(160, 160)) {
+            resize(faceROI, dst, size);
         }
+        return dst;
+    }
 
-        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
-        recognizer.train(images, labels);
+    private RectVector detect(FaceEngine engine, Mat image) {
+        return detect(engine, image, null);
+    }
 
-        File outputDir = new File("src/main/resources/trained_faces");
-        if (!outputDir.exists())
-            outputDir.mkdirs();
+    /** Camera frames are searched downscaled by {@code face.detect.camera-downscale}. */
+    private RectVector detectCameraFrame(FaceEngine engine, Mat frame) {
+        long start = System.nanoTime();
+        RectVector faces = faceDetection.detectCameraFrame(engine.faceDetector(), frame);
+        faceMetrics.recordStage(FaceMetrics.DETECT, start);
+        faceMetrics.facesDetected(faces.size());
+        return faces;
+    }
 
-        File modelFile = new File(outputDir, "lbph_model.xml");
-        recognizer.save(modelFile.getAbsolutePath());
-        System.out.println("Model saved to: " + modelFile.getAbsolutePath());
+    private RectVector detect(FaceEngine engine, Mat image, FaceTracker tracker) {
+        long start = System.nanoTime();
+        RectVector faces = tracker != null
+                ? tracker.track(engine.faceDetector(), image)
+                : faceDetection.detect(engine.faceDetector(), image);
+        faceMetrics.recordStage(FaceMetrics.DETECT, start);
+        faceMetrics.facesDetected(faces.size());
+        return faces;
+    }
+
+    private Prediction predict(FaceEngine engine, String group, Mat image, Rect face) {
+        long cropStart = System.nanoTime();
+        Mat faceROI = cropFace(image, face, engine.faceScratch());
+        faceMetrics.recordStage(FaceMetrics.CROP, cropStart);
+
+        long predictStart = System.nanoTime();
+        int[] label = new int[1];
+        double[] confidence = new double[1];
+        engine.predict(group, faceROI, label, confidence);
+        faceMetrics.recordStage(FaceMetrics.PREDICT, predictStart);
+        faceMetrics.prediction(confidence[0]);
+
+        log.debug("Predicted User ID: {}, Confidence: {}", label[0], confidence[0]);
+        return new Prediction(true, label[0], confidence[0]);
+    }
+
+    private record Prediction(boolean faceFound, int label, double confidence) {
+        static final Prediction NO_FACE = new Prediction(false, -1, Double.MAX_VALUE);
     }
 
     public String captureTrainingImages(int userId, int numImages) throws IOException {
@@ -260,35 +485,48 @@ public class FaceService {
         if (!camera.isOpened())
             return "Error: Cannot access camera";
 
-        Resource haarResource = new ClassPathResource("haarcascade_frontalface_alt.xml");
-        File haarFile = createTempFile(haarResource, "haarcascade_frontalface_alt.xml");
-        CascadeClassifier faceDetector = new CascadeClassifier(haarFile.getAbsolutePath());
+        CascadeClassifier faceDetector = new CascadeClassifier(modelRegistry.getCascadeFile().getAbsolutePath());
         if (faceDetector.empty()) {
             camera.release();
             return "Error: Failed to load Haar Cascade classifier";
         }
 
-        File outputDir = new File("C:/training_images/user" + userId);
+        File outputDir = trainingService.getUserDir(userId);
         if (!outputDir.exists())
             outputDir.mkdirs();
 
+        FaceTracker tracker = faceDetection.newTracker();
+        List<Long> keptHashes = new ArrayList<>();
+        Map<String, Integer> dropped = new TreeMap<>();
+        // Give up eventually instead of looping forever on a camera that never yields a usable face.
+        int maxFrames = numImages * 20;
         Mat colorFrame = new Mat();
         int count = 0;
-        while (count < numImages) {
+        for (int frames = 0; count < numImages && frames < maxFrames; frames++) {
             camera.read(colorFrame);
             Mat frame = new Mat();
             cvtColor(colorFrame, frame, COLOR_BGR2GRAY);
 
-            RectVector faces = new RectVector();
-            faceDetector.detectMultiScale(frame, faces);
+            RectVector faces = tracker.track(faceDetector, frame);
 
             if (faces.size() > 0) {
                 Rect face = faces.get(0);
-                Mat faceROI = new Mat(frame, face);
-                resize(faceROI, faceROI, new Size(160, 160));
-                File outputFile = new File(outputDir, "image" + (count + 1) + ".jpg");
-                imwrite(outputFile.getAbsolutePath(), faceROI);
-                count++;
+                Mat faceROI = new Mat();
+                resize(new Mat(frame, face), faceROI, new Size(160, 160));
+
+                Assessment assessment = imageQuality.assess(faceROI, face.width());
+                String rejection = assessment.rejection();
+                if (rejection == null && imageQuality.isNearDuplicate(assessment.hash(), keptHashes))
+                    rejection = ImageQuality.DUPLICATE;
+
+                if (rejection == null) {
+                    File outputFile = new File(outputDir, "image" + (count + 1) + ".jpg");
+                    imwrite(outputFile.getAbsolutePath(), faceROI);
+                    keptHashes.add(assessment.hash());
+                    count++;
+                } else {
+                    dropped.merge(rejection, 1, Integer::sum);
+                }
             }
 
             try {
@@ -299,28 +537,8 @@ public class FaceService {
         }
 
         camera.release();
-        return "Captured " + numImages + " images for user" + userId;
-    }
-
-    public String uploadMenuImage(MultipartFile imageFile, int userId) {
-        try {
-            File dir = new File("C:/menu_images/user" + userId);
-            if (!dir.exists())
-                dir.mkdirs();
-            String fileName = "menu_" + System.currentTimeMillis() + ".jpg";
-            File dest = new File(dir, fileName);
-            imageFile.transferTo(dest);
-
-            return "Menu img uploaded successfully: " + dest.getAbsolutePath();
-        } catch (IOException e) {
-            return "Error uploading menu image: " + e.getMessage();
-        }
+        return "Captured " + count + " of " + numImages + " images for user" + userId
+                + (dropped.isEmpty() ? "" : ", dropped " + dropped);
     }
 
-    private File createTempFile(Resource resource, String fileName) throws IOException {
-        Path tempFile = Files.createTempFile("face_", fileName);
-        Files.copy(resource.getInputStream(), tempFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-        System.out.println("Created temp file: " + tempFile.toFile().getAbsolutePath());
-        return tempFile.toFile();
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,102 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lightweight tracker for a single camera loop. Full-frame detection runs every {@code detectEvery}
+ * frames; in between, each face is searched for only in a window around where it was last seen, with
+ * size bounds close to its last size. If any tracked face is lost the next frame falls back to full
+ * detection. Not thread-safe: one tracker per capture loop.
+ */
+public class FaceTracker {
+
+    /** How far around the last position to search, relative to the face size. */
+    private static final double SEARCH_MARGIN = 0.5;
+
+    private final FaceDetection detection;
+    private final int detectEvery;
+    private final List<int[]> tracks = new ArrayList<>();
+    private int framesSinceDetection;
+    private long fullDetections;
+    private long trackedFrames;
+
+    FaceTracker(FaceDetection detection, int detectEvery) {
+        this.detection = detection;
+        this.detectEvery = Math.max(1, detectEvery);
+    }
+
+    public RectVector track(CascadeClassifier detector, Mat gray) {
+        if (tracks.isEmpty() || framesSinceDetection >= detectEvery - 1)
+            return fullDetection(detector, gray);
+
+        List<int[]> updated = new ArrayList<>(tracks.size());
+        for (int[] last : tracks) {
+            int[] found = searchAround(detector, gray, last);
+            if (found == null)
+                return fullDetection(detector, gray);
+            updated.add(found);
+        }
+
+        tracks.clear();
+        tracks.addAll(updated);
+        framesSinceDetection++;
+        trackedFrames++;
+        return toRectVector(tracks);
+    }
+
+    public long getFullDetections() {
+        return fullDetections;
+    }
+
+    public long getTrackedFrames() {
+        return trackedFrames;
+    }
+
+    private RectVector fullDetection(CascadeClassifier detector, Mat gray) {
+        RectVector faces = detection.detectCameraFrame(detector, gray);
+        tracks.clear();
+        for (long i = 0; i < faces.size(); i++) {
+            Rect r = faces.get(i);
+            tracks.add(new int[] { r.x(), r.y(), r.width(), r.height() });
+        }
+        framesSinceDetection = 0;
+        fullDetections++;
+        return faces;
+    }
+
+    private int[] searchAround(CascadeClassifier detector, Mat gray, int[] last) {
+        int margin = (int) (Math.max(last[2], last[3]) * SEARCH_MARGIN);
+        int x = Math.max(last[0] - margin, 0);
+        int y = Math.max(last[1] - margin, 0);
+        int w = Math.min(last[2] + 2 * margin, gray.cols() - x);
+        int h = Math.min(last[3] + 2 * margin, gray.rows() - y);
+        if (w <= 0 || h <= 0)
+            return null;
+
+        try (Rect window = new Rect(x, y, w, h); Mat roi = new Mat(gray, window)) {
+            int size = Math.max(last[2], last[3]);
+            RectVector faces = detection.detectCameraFrame(detector, roi, (int) (size * 0.7), (int) (size * 1.4));
+            if (faces.size() == 0)
+                return null;
+
+            Rect best = faces.get(0);
+            for (long i = 1; i < faces.size(); i++) {
+                if (faces.get(i).area() > best.area())
+                    best = faces.get(i);
+            }
+            return new int[] { x + best.x(), y + best.y(), best.width(), best.height() };
+        }
+    }
+
+    private static RectVector toRectVector(List<int[]> rects) {
+        RectVector faces = new RectVector();
+        for (int[] r : rects) {
+            faces.push_back(new Rect(r[0], r[1], r[2], r[3]));
+        }
+        return faces;
+    }
+}
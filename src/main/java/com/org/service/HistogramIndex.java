@@ -0,0 +1,144 @@
+package com.org.service;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Flat nearest-neighbour index over LBPH histograms. Distances use the same chi-square variant as
+ * OpenCV's LBPH predict ({@code HISTCMP_CHISQR_ALT}); the inner loop uses the Java Vector API when the
+ * {@code jdk.incubator.vector} module is present and large galleries are scanned in parallel segments.
+ * Results are reported per label, so {@link #topK} returns the k closest distinct users.
+ */
+public final class HistogramIndex {
+
+    public record Match(int label, double distance) {
+    }
+
+    /** Below this many histograms a single thread is faster than forking. */
+    private static final int PARALLEL_THRESHOLD = 2048;
+    private static final int SEGMENT_SIZE = 1024;
+
+    static final boolean VECTOR_ENABLED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("face.index.scalar");
+
+    private final int histogramLength;
+    private final int count;
+    private final float[] histograms;
+    private final int[] distinctLabels;
+    private final int[] labelSlots;
+
+    HistogramIndex(int[] labels, float[] histograms, int histogramLength) {
+        this.histogramLength = histogramLength;
+        this.count = labels.length;
+        this.histograms = histograms;
+
+        // Map labels to dense slots so per-label minima can live in a plain double[].
+        Map<Integer, Integer> slots = new LinkedHashMap<>();
+        labelSlots = new int[count];
+        for (int i = 0; i < count; i++) {
+            Integer slot = slots.get(labels[i]);
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(labels[i], slot);
+            }
+            labelSlots[i] = slot;
+        }
+        distinctLabels = new int[slots.size()];
+        for (Map.Entry<Integer, Integer> entry : slots.entrySet()) {
+            distinctLabels[entry.getValue()] = entry.getKey();
+        }
+    }
+
+    /** Closest label below the threshold, or label -1 like OpenCV when nothing qualifies. */
+    public Match nearest(float[] query, double threshold) {
+        List<Match> best = topK(query, 1);
+        if (best.isEmpty() || !(best.get(0).distance() < threshold))
+            return new Match(-1, Double.MAX_VALUE);
+        return best.get(0);
+    }
+
+    /** The k closest distinct labels, nearest first. */
+    public List<Match> topK(float[] query, int k) {
+        if (query.length != histogramLength)
+            throw new IllegalArgumentException("Query histogram has length " + query.length + ", expected "
+                    + histogramLength);
+
+        double[] minima;
+        if (count < PARALLEL_THRESHOLD) {
+            minima = scan(query, 0, count);
+        } else {
+            int segments = (count + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+            minima = IntStream.range(0, segments).parallel()
+                    .mapToObj(s -> scan(query, s * SEGMENT_SIZE, Math.min(count, (s + 1) * SEGMENT_SIZE)))
+                    .reduce(HistogramIndex::mergeMinima)
+                    .orElseGet(() -> emptyMinima());
+        }
+
+        if (k == 1) {
+            int best = -1;
+            for (int slot = 0; slot < minima.length; slot++) {
+                if (best < 0 || minima[slot] < minima[best])
+                    best = slot;
+            }
+            return best < 0 ? List.of() : List.of(new Match(distinctLabels[best], minima[best]));
+        }
+
+        Integer[] order = new Integer[distinctLabels.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(slot -> minima[slot]));
+
+        List<Match> matches = new ArrayList<>(Math.min(k, order.length));
+        for (int i = 0; i < order.length && matches.size() < k; i++) {
+            matches.add(new Match(distinctLabels[order[i]], minima[order[i]]));
+        }
+        return matches;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private double[] scan(float[] query, int from, int to) {
+        double[] minima = emptyMinima();
+        for (int i = from; i < to; i++) {
+            int offset = i * histogramLength;
+            double dist = VECTOR_ENABLED
+                    ? VectorChiSquare.distance(query, histograms, offset, histogramLength)
+                    : chiSquare(query, histograms, offset, histogramLength);
+            int slot = labelSlots[i];
+            if (dist < minima[slot])
+                minima[slot] = dist;
+        }
+        return minima;
+    }
+
+    private double[] emptyMinima() {
+        double[] minima = new double[distinctLabels.length];
+        Arrays.fill(minima, Double.MAX_VALUE);
+        return minima;
+    }
+
+    private static double[] mergeMinima(double[] a, double[] b) {
+        for (int i = 0; i < a.length; i++) {
+            a[i] = Math.min(a[i], b[i]);
+        }
+        return a;
+    }
+
+    /**
+     * Scalar reference implementation of OpenCV's compareHist loop: bins are widened to double before
+     * subtracting, as OpenCV's SIMD path does, and bins summing to within DBL_EPSILON of zero are skipped.
+     */
+    static double chiSquare(float[] query, float[] histograms, int offset, int length) {
+        double result = 0;
+        for (int j = 0; j < length; j++) {
+            double a = (double) query[j] - histograms[offset + j];
+            double b = (double) query[j] + histograms[offset + j];
+            if (Math.abs(b) > Math.ulp(1.0))
+                result += a * a / b;
+        }
+        return result * 2;
+    }
+}
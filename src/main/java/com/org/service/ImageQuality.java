@@ -0,0 +1,118 @@
+package com.org.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.bytedeco.opencv.opencv_core.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Quality gate for training faces: sharpness (variance of the Laplacian), face size and exposure, plus a
+ * 64-bit DCT perceptual hash so near-identical frames of the same person can be dropped.
+ */
+@Component
+public class ImageQuality {
+
+    public static final String BLURRY = "blurry";
+    public static final String TOO_SMALL = "too_small";
+    public static final String TOO_DARK = "too_dark";
+    public static final String TOO_BRIGHT = "too_bright";
+    public static final String DUPLICATE = "duplicate";
+    public static final String NO_FACE = "no_face";
+    public static final String UNREADABLE = "unreadable";
+
+    public record Assessment(double sharpness, double brightness, int faceSize, long hash, String rejection) {
+        public boolean accepted() {
+            return rejection == null;
+        }
+    }
+
+    @Value("${face.quality.min-sharpness:50}")
+    private double minSharpness;
+
+    @Value("${face.quality.min-face-size:80}")
+    private int minFaceSize;
+
+    @Value("${face.quality.min-brightness:40}")
+    private double minBrightness;
+
+    @Value("${face.quality.max-brightness:220}")
+    private double maxBrightness;
+
+    @Value("${face.quality.max-hash-distance:6}")
+    private int maxHashDistance;
+
+    /**
+     * Scores a gray face crop already resized to the training size; {@code faceSize} is the width of the
+     * face in the source image.
+     */
+    public Assessment assess(Mat face, int faceSize) {
+        double sharpness = sharpness(face);
+        double brightness = mean(face).get(0);
+        long hash = hash(face);
+
+        String rejection = null;
+        if (faceSize < minFaceSize)
+            rejection = TOO_SMALL;
+        else if (brightness < minBrightness)
+            rejection = TOO_DARK;
+        else if (brightness > maxBrightness)
+            rejection = TOO_BRIGHT;
+        else if (sharpness < minSharpness)
+            rejection = BLURRY;
+        return new Assessment(sharpness, brightness, faceSize, hash, rejection);
+    }
+
+    public boolean isNearDuplicate(long hash, Collection<Long> kept) {
+        for (long other : kept) {
+            if (Long.bitCount(hash ^ other) <= maxHashDistance)
+                return true;
+        }
+        return false;
+    }
+
+    static double sharpness(Mat face) {
+        try (Mat laplacian = new Mat(); Mat mean = new Mat(); Mat stddev = new Mat()) {
+            Laplacian(face, laplacian, CV_64F);
+            meanStdDev(laplacian, mean, stddev);
+            DoubleBuffer sd = stddev.createBuffer();
+            return sd.get(0) * sd.get(0);
+        }
+    }
+
+    /** pHash: low 8x8 DCT coefficients of a 32x32 thumbnail, thresholded at their median. */
+    static long hash(Mat face) {
+        try (Mat small = new Mat(); Mat floats = new Mat(); Mat coefficients = new Mat();
+                Size size = new Size(32, 32)) {
+            resize(face, small, size, 0, 0, INTER_AREA);
+            small.convertTo(floats, CV_32F);
+            dct(floats, coefficients);
+
+            FloatBuffer dct = coefficients.createBuffer();
+            float[] low = new float[64];
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    low[row * 8 + col] = dct.get(row * 32 + col);
+                }
+            }
+            // Skip the DC term, it only carries overall brightness.
+            float[] sorted = Arrays.copyOfRange(low, 1, 64);
+            Arrays.sort(sorted);
+            float median = sorted[sorted.length / 2];
+
+            long hash = 0;
+            for (int i = 0; i < 64; i++) {
+                if (low[i] > median)
+                    hash |= 1L << i;
+            }
+            return hash;
+        }
+    }
+}
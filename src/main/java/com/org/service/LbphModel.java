@@ -0,0 +1,185 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_face.*;
+
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable in-memory copy of a trained LBPH model: the recognizer parameters, one label per sample and
+ * all sample histograms packed back to back in a single {@code float[]}. Instances are safe to share
+ * between threads, so every pooled engine can predict against the same model.
+ */
+public final class LbphModel {
+
+    private final int radius;
+    private final int neighbors;
+    private final int gridX;
+    private final int gridY;
+    private final double threshold;
+    private final int histogramLength;
+    private final int[] labels;
+    private final float[] histograms;
+    private final HistogramIndex index;
+
+    public LbphModel(int radius, int neighbors, int gridX, int gridY, double threshold, int histogramLength,
+            int[] labels, float[] histograms) {
+        if (histograms.length != (long) labels.length * histogramLength)
+            throw new IllegalArgumentException("Expected " + labels.length + " histograms of length "
+                    + histogramLength + " but got " + histograms.length + " values");
+        this.radius = radius;
+        this.neighbors = neighbors;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.threshold = threshold;
+        this.histogramLength = histogramLength;
+        this.labels = labels;
+        this.histograms = histograms;
+        this.index = new HistogramIndex(labels, histograms, histogramLength);
+    }
+
+    /** Copies the histograms and labels out of a trained OpenCV recognizer. */
+    public static LbphModel fromRecognizer(LBPHFaceRecognizer recognizer) {
+        MatVector mats = recognizer.getHistograms();
+        Mat labelMat = recognizer.getLabels();
+        int count = (int) mats.size();
+        int length = count == 0 ? 0 : (int) mats.get(0).total();
+
+        int[] labels = new int[count];
+        IntBuffer labelBuf = labelMat.createBuffer();
+        labelBuf.get(labels);
+
+        float[] histograms = new float[count * length];
+        for (int i = 0; i < count; i++) {
+            FloatBuffer histogram = mats.get(i).createBuffer();
+            histogram.get(histograms, i * length, length);
+        }
+        return new LbphModel(recognizer.getRadius(), recognizer.getNeighbors(), recognizer.getGridX(),
+                recognizer.getGridY(), recognizer.getThreshold(), length, labels, histograms);
+    }
+
+    /** True when both models compute histograms the same way, so one extractor serves both. */
+    public boolean sameParameters(LbphModel other) {
+        return radius == other.radius && neighbors == other.neighbors && gridX == other.gridX
+                && gridY == other.gridY;
+    }
+
+    /**
+     * Creates an empty recognizer with this model's parameters. Training it on a single face yields exactly
+     * the histogram OpenCV would compare during {@code predict}.
+     */
+    public LBPHFaceRecognizer newHistogramExtractor() {
+        return LBPHFaceRecognizer.create(radius, neighbors, gridX, gridY, threshold);
+    }
+
+    /** Computes the LBPH histogram of a face using an extractor from {@link #newHistogramExtractor()}. */
+    public static float[] histogramOf(LBPHFaceRecognizer extractor, Mat face) {
+        try (MatVector images = new MatVector(face); Mat label = new Mat(1, 1, CV_32SC1)) {
+            IntBuffer labelBuf = label.createBuffer();
+            labelBuf.put(0, 0);
+            extractor.train(images, label);
+        }
+        Mat histogram = extractor.getHistograms().get(0);
+        float[] query = new float[(int) histogram.total()];
+        FloatBuffer buf = histogram.createBuffer();
+        buf.get(query);
+        return query;
+    }
+
+    /**
+     * Nearest-neighbour search with the chi-square distance OpenCV uses for LBPH
+     * ({@code HISTCMP_CHISQR_ALT}). Writes label -1 when nothing is closer than the model threshold.
+     */
+    public void predict(float[] query, int[] label, double[] confidence) {
+        HistogramIndex.Match match = index.nearest(query, threshold);
+        label[0] = match.label();
+        confidence[0] = match.distance();
+    }
+
+    /** The k closest distinct labels for the query histogram, nearest first. */
+    public List<HistogramIndex.Match> topK(float[] query, int k) {
+        return index.topK(query, k);
+    }
+
+    /** Returns a new model with the other model's samples appended, like {@link LBPHFaceRecognizer#update}. */
+    public LbphModel append(LbphModel other) {
+        if (other.histogramLength != histogramLength && size() > 0)
+            throw new IllegalArgumentException("Histogram length mismatch: " + histogramLength + " vs "
+                    + other.histogramLength);
+        int[] mergedLabels = Arrays.copyOf(labels, labels.length + other.labels.length);
+        System.arraycopy(other.labels, 0, mergedLabels, labels.length, other.labels.length);
+        float[] mergedHistograms = Arrays.copyOf(histograms, histograms.length + other.histograms.length);
+        System.arraycopy(other.histograms, 0, mergedHistograms, histograms.length, other.histograms.length);
+        return new LbphModel(radius, neighbors, gridX, gridY, threshold, other.histogramLength, mergedLabels,
+                mergedHistograms);
+    }
+
+    /**
+     * Returns a new model in which every sample of {@code label} is replaced by the other model's samples,
+     * so retraining one user does not keep their stale histograms next to the new ones.
+     */
+    public LbphModel replaceLabel(int label, LbphModel samples) {
+        int kept = 0;
+        for (int l : labels) {
+            if (l != label)
+                kept++;
+        }
+        if (kept == labels.length)
+            return append(samples);
+
+        int[] keptLabels = new int[kept];
+        float[] keptHistograms = new float[kept * histogramLength];
+        for (int i = 0, j = 0; i < labels.length; i++) {
+            if (labels[i] == label)
+                continue;
+            keptLabels[j] = labels[i];
+            System.arraycopy(histograms, i * histogramLength, keptHistograms, j * histogramLength, histogramLength);
+            j++;
+        }
+        return new LbphModel(radius, neighbors, gridX, gridY, threshold, histogramLength, keptLabels, keptHistograms)
+                .append(samples);
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public int getNeighbors() {
+        return neighbors;
+    }
+
+    public int getGridX() {
+        return gridX;
+    }
+
+    public int getGridY() {
+        return gridY;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public int getHistogramLength() {
+        return histogramLength;
+    }
+
+    /** Backing label array; callers must not modify it. */
+    int[] labels() {
+        return labels;
+    }
+
+    /** Backing histogram array; callers must not modify it. */
+    float[] histograms() {
+        return histograms;
+    }
+}
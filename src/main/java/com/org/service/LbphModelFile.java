@@ -0,0 +1,168 @@
+package com.org.service;
+
+import org.bytedeco.opencv.opencv_face.*;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes the compact binary LBPH model format, and converts to and from OpenCV's XML format.
+ *
+ * <pre>
+ * offset  size        field
+ * 0       4           magic "LBPH"
+ * 4       4           format version (1)
+ * 8       4 x 4       radius, neighbors, grid_x, grid_y
+ * 24      8           threshold
+ * 32      4           sample count n
+ * 36      4           histogram length m
+ * 40      4 x n       labels
+ * ...     4 x n x m   histograms, sample after sample
+ * </pre>
+ *
+ * All values are little-endian. Loading maps the file and bulk-copies the label and histogram sections
+ * straight into primitive arrays, so load time only depends on file size.
+ */
+public final class LbphModelFile {
+
+    private static final int MAGIC = 0x4850424C; // "LBPH" read as a little-endian int
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+
+    private LbphModelFile() {
+    }
+
+    public static LbphModel read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES)
+                throw new IOException("Not an LBPH model file: " + file.getAbsolutePath());
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC)
+                throw new IOException("Not an LBPH model file: " + file.getAbsolutePath());
+            int version = mapped.getInt(4);
+            if (version != FORMAT_VERSION)
+                throw new IOException("Unsupported LBPH model format version " + version);
+
+            int radius = mapped.getInt(8);
+            int neighbors = mapped.getInt(12);
+            int gridX = mapped.getInt(16);
+            int gridY = mapped.getInt(20);
+            double threshold = mapped.getDouble(24);
+            int count = mapped.getInt(32);
+            int length = mapped.getInt(36);
+
+            long expected = HEADER_BYTES + 4L * count + 4L * count * length;
+            if (count < 0 || length < 0 || expected != size)
+                throw new IOException("Truncated or corrupt LBPH model file: " + file.getAbsolutePath());
+
+            int[] labels = new int[count];
+            mapped.position(HEADER_BYTES);
+            mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(labels);
+
+            float[] histograms = new float[count * length];
+            mapped.position(HEADER_BYTES + 4 * count);
+            mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(histograms);
+
+            return new LbphModel(radius, neighbors, gridX, gridY, threshold, length, labels, histograms);
+        }
+    }
+
+    /** Writes the model next to the target and moves it into place so readers never see a partial file. */
+    public static void write(LbphModel model, File file) throws IOException {
+        Path target = file.toPath().toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), "lbph_", ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(FORMAT_VERSION)
+                    .putInt(model.getRadius()).putInt(model.getNeighbors())
+                    .putInt(model.getGridX()).putInt(model.getGridY())
+                    .putDouble(model.getThreshold())
+                    .putInt(model.size()).putInt(model.getHistogramLength());
+            header.flip();
+            writeFully(channel, header);
+
+            ByteBuffer labels = ByteBuffer.allocate(4 * model.size()).order(ByteOrder.LITTLE_ENDIAN);
+            labels.asIntBuffer().put(model.labels());
+            writeFully(channel, labels);
+
+            // Histograms can be large; stream them through a fixed-size buffer.
+            float[] histograms = model.histograms();
+            ByteBuffer chunk = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            int floatsPerChunk = chunk.capacity() / 4;
+            for (int offset = 0; offset < histograms.length; offset += floatsPerChunk) {
+                int n = Math.min(floatsPerChunk, histograms.length - offset);
+                chunk.clear();
+                chunk.asFloatBuffer().put(histograms, offset, n);
+                chunk.limit(4 * n);
+                writeFully(channel, chunk);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Imports a model saved by OpenCV's {@code LBPHFaceRecognizer.save}. */
+    public static LbphModel importXml(File xmlFile) throws IOException {
+        if (!xmlFile.exists())
+            throw new IOException("Model file not found: " + xmlFile.getAbsolutePath());
+        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
+        recognizer.read(xmlFile.getAbsolutePath());
+        return LbphModel.fromRecognizer(recognizer);
+    }
+
+    /** Writes the model in OpenCV's XML layout so {@code LBPHFaceRecognizer.read} can load it again. */
+    public static void exportXml(LbphModel model, File xmlFile) throws IOException {
+        int length = model.getHistogramLength();
+        float[] histograms = model.histograms();
+        try (BufferedWriter out = Files.newBufferedWriter(xmlFile.toPath(), StandardCharsets.UTF_8)) {
+            out.write("<?xml version=\"1.0\"?>\n<opencv_storage>\n<opencv_lbphfaces>\n");
+            out.write("  <threshold>" + model.getThreshold() + "</threshold>\n");
+            out.write("  <radius>" + model.getRadius() + "</radius>\n");
+            out.write("  <neighbors>" + model.getNeighbors() + "</neighbors>\n");
+            out.write("  <grid_x>" + model.getGridX() + "</grid_x>\n");
+            out.write("  <grid_y>" + model.getGridY() + "</grid_y>\n");
+            out.write("  <histograms>\n");
+            for (int i = 0; i < model.size(); i++) {
+                out.write("    <_ type_id=\"opencv-matrix\">\n      <rows>1</rows>\n      <cols>" + length
+                        + "</cols>\n      <dt>f</dt>\n      <data>\n");
+                for (int j = 0; j < length; j++) {
+                    out.write(j % 8 == 0 ? (j == 0 ? "        " : "\n        ") : " ");
+                    out.write(Float.toString(histograms[i * length + j]));
+                }
+                out.write("</data></_>\n");
+            }
+            out.write("  </histograms>\n");
+            out.write("  <labels type_id=\"opencv-matrix\">\n    <rows>" + model.size()
+                    + "</rows>\n    <cols>1</cols>\n    <dt>i</dt>\n    <data>\n     ");
+            for (int label : model.labels()) {
+                out.write(" " + label);
+            }
+            out.write("</data></labels>\n  <labelsInfo>\n    </labelsInfo></opencv_lbphfaces>\n</opencv_storage>\n");
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
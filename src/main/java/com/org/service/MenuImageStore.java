@@ -0,0 +1,211 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.org.dto.MenuImage;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store for menu images. Originals live under {@code objects/ab/<sha256>.<ext>}, so an
+ * identical upload is stored once and a name never changes content; a JPEG thumbnail is written once
+ * next to it under {@code thumbs/}. Because identical uploads share one object, ownership is recorded
+ * separately as an empty {@code owners/user<N>/<name>} marker and every lookup is scoped to it. Images
+ * uploaded before the store existed stay readable from the old {@code user<N>/} folders.
+ */
+@Service
+public class MenuImageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuImageStore.class);
+
+    private static final Pattern HASHED_NAME = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+
+    @Value("${face.menu.dir:C:/menu_images}")
+    private String menuDir;
+
+    @Value("${face.menu.thumbnail-size:320}")
+    private int thumbnailSize;
+
+    /** Hashes the upload while spooling it to disk and keeps it only if the content is new. */
+    public MenuImage store(MultipartFile imageFile, int userId) throws IOException {
+        Path tmpDir = Files.createDirectories(root().resolve("tmp"));
+        Path temp = Files.createTempFile(tmpDir, "upload_", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (InputStream in = new DigestInputStream(imageFile.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String imageName = hash + "." + extension(temp);
+
+            File original = originalFile(imageName);
+            boolean deduplicated = original.exists();
+            if (!deduplicated) {
+                Files.createDirectories(original.getParentFile().toPath());
+                try {
+                    Files.move(temp, original.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // The same content was stored concurrently.
+                    deduplicated = true;
+                }
+            }
+            recordOwner(userId, imageName);
+            try {
+                thumbnailFile(imageName);
+            } catch (IOException e) {
+                log.warn("Thumbnail for {} failed", imageName, e);
+            }
+
+            String base = "/api/face/menu-images/" + userId;
+            return new MenuImage(imageName, hash, original.length(), deduplicated, base + "/view/" + imageName,
+                    base + "/thumb/" + imageName);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean isContentAddressed(String imageName) {
+        return HASHED_NAME.matcher(imageName).matches();
+    }
+
+    /** The user's original file for a content-addressed or legacy image name, or null if there is none. */
+    public File find(int userId, String imageName) {
+        File file;
+        if (isContentAddressed(imageName))
+            file = isOwner(userId, imageName) ? originalFile(imageName) : null;
+        else if (isSafeLegacyName(imageName))
+            file = root().resolve("user" + userId).resolve(imageName).toFile();
+        else
+            return null;
+        return file != null && file.isFile() ? file : null;
+    }
+
+    /**
+     * The thumbnail of one of the user's content-addressed images, created if it is missing. Null if the
+     * image is unknown or belongs to someone else.
+     */
+    public File findThumbnail(int userId, String imageName) throws IOException {
+        if (!isContentAddressed(imageName) || !isOwner(userId, imageName) || !originalFile(imageName).isFile())
+            return null;
+        return thumbnailFile(imageName);
+    }
+
+    private void recordOwner(int userId, String imageName) throws IOException {
+        Path marker = ownerMarker(userId, imageName);
+        Files.createDirectories(marker.getParent());
+        try {
+            Files.createFile(marker);
+        } catch (FileAlreadyExistsException e) {
+            // The user uploaded this content before.
+        }
+    }
+
+    private boolean isOwner(int userId, String imageName) {
+        return Files.exists(ownerMarker(userId, imageName));
+    }
+
+    private Path ownerMarker(int userId, String imageName) {
+        return root().resolve("owners").resolve("user" + userId).resolve(imageName);
+    }
+
+    private File thumbnailFile(String imageName) throws IOException {
+        String hash = imageName.substring(0, imageName.indexOf('.'));
+        File thumbnail = root().resolve("thumbs").resolve(hash.substring(0, 2)).resolve(hash + ".jpg").toFile();
+        if (thumbnail.isFile())
+            return thumbnail;
+
+        Files.createDirectories(thumbnail.getParentFile().toPath());
+        try (PointerScope scope = new PointerScope()) {
+            Mat image = imread(originalFile(imageName).getAbsolutePath(), IMREAD_COLOR);
+            if (image.empty())
+                throw new IOException("Invalid img file");
+
+            double scale = Math.min(1.0, (double) thumbnailSize / Math.max(image.cols(), image.rows()));
+            Mat small = new Mat();
+            resize(image, small, new Size((int) Math.round(image.cols() * scale),
+                    (int) Math.round(image.rows() * scale)), 0, 0, INTER_AREA);
+
+            // Write under a temp name first so a concurrent reader never sees half a file.
+            Path temp = Files.createTempFile(thumbnail.getParentFile().toPath(), hash, ".jpg");
+            if (!imwrite(temp.toString(), small, new int[] { IMWRITE_JPEG_QUALITY, 85 })) {
+                Files.deleteIfExists(temp);
+                throw new IOException("Failed to write thumbnail");
+            }
+            Files.move(temp, thumbnail.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        return thumbnail;
+    }
+
+    private File originalFile(String imageName) {
+        return root().resolve("objects").resolve(imageName.substring(0, 2)).resolve(imageName).toFile();
+    }
+
+    private Path root() {
+        return Path.of(menuDir).toAbsolutePath();
+    }
+
+    private static boolean isSafeLegacyName(String imageName) {
+        return !imageName.isEmpty() && !imageName.contains("/") && !imageName.contains("\\")
+                && !imageName.contains("..");
+    }
+
+    /**
+     * The extension of the format the bytes are actually in, ignoring the client's Content-Type and file name,
+     * so identical content always gets the same name.
+     */
+    private static String extension(Path file) throws IOException {
+        byte[] head = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(head, 0, head.length);
+        }
+        if (read >= 3 && startsWith(head, 0, 0xFF, 0xD8, 0xFF))
+            return "jpg";
+        if (read >= 8 && startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A))
+            return "png";
+        if (read >= 6 && (startsWith(head, 0, 'G', 'I', 'F', '8', '7', 'a')
+                || startsWith(head, 0, 'G', 'I', 'F', '8', '9', 'a')))
+            return "gif";
+        if (read >= 12 && startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P'))
+            return "webp";
+        throw new IOException("Unsupported image format");
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... signature) {
+        for (int i = 0; i < signature.length; i++) {
+            if ((bytes[offset + i] & 0xff) != signature[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
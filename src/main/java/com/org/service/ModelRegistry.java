@@ -0,0 +1,241 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import org.bytedeco.opencv.opencv_objdetect.*;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Holds the Haar cascade and the LBPH models so they are parsed once instead of on every request.
+ * Users are split into groups and each group has its own model shard, so a request only searches the
+ * gallery of the group it names. A retrained shard is published by swapping the whole
+ * {@link ModelSnapshot}; callers that already grabbed the previous snapshot keep using it until they
+ * finish. Every save goes to a new versioned file ({@code lbph_model-v3.bin}, ...) and the newest one is
+ * loaded at startup: next to {@code face.model.path} for the default group and under
+ * {@code groups/<group>/} beside it for the others. Each snapshot carries one freshly loaded detector for
+ * the recognizer pool to take over; a snapshot replaced before that happens closes it.
+ */
+@Component
+public class ModelRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelRegistry.class);
+
+    public record ModelSnapshot(long version, Instant loadedAt, String source, long loadMillis,
+            CascadeClassifier faceDetector, Map<String, LbphModel> shards) {
+
+        public boolean hasModel() {
+            return hasModel(UserDirectory.DEFAULT_GROUP);
+        }
+
+        public boolean hasModel(String group) {
+            return shards.containsKey(group);
+        }
+
+        /** The default group's model, or null before it has been trained. */
+        public LbphModel model() {
+            return model(UserDirectory.DEFAULT_GROUP);
+        }
+
+        public LbphModel model(String group) {
+            return shards.get(group);
+        }
+    }
+
+    @Value("${face.model.path:src/main/resources/trained_faces/lbph_model.bin}")
+    private String modelPath;
+
+    @Value("${face.model.keep-versions:5}")
+    private int keepVersions;
+
+    private final AtomicReference<ModelSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final Object detectorLock = new Object();
+    private ModelSnapshot unclaimed;
+    private File cascadeFile;
+
+    @PostConstruct
+    public void init() throws IOException {
+        cascadeFile = copyToTempFile(new ClassPathResource("haarcascade_frontalface_alt.xml"),
+                "haarcascade_frontalface_alt.xml");
+        publish(UserDirectory.DEFAULT_GROUP, null, "none", 0);
+
+        String group = UserDirectory.DEFAULT_GROUP;
+        File modelFile = getModelFile();
+        File legacyXml = new File(modelFile.getParentFile(), "lbph_model.xml");
+        Resource bundled = new ClassPathResource("trained_faces/lbph_model.xml");
+        List<File> versions = versionedFiles(group);
+        if (!versions.isEmpty()) {
+            load(group, versions.get(versions.size() - 1));
+        } else if (modelFile.exists()) {
+            load(group, modelFile);
+        } else if (legacyXml.exists()) {
+            importXml(legacyXml);
+        } else if (bundled.exists()) {
+            importXml(copyToTempFile(bundled, "lbph_model.xml"));
+        } else {
+            log.info("No trained model found, recognition disabled until /api/face/train is called");
+        }
+
+        File[] groupDirs = getGroupsDir().listFiles(File::isDirectory);
+        for (File groupDir : groupDirs != null ? groupDirs : new File[0]) {
+            List<File> groupVersions = versionedFiles(groupDir.getName());
+            if (!groupVersions.isEmpty())
+                load(groupDir.getName(), groupVersions.get(groupVersions.size() - 1));
+        }
+    }
+
+    public ModelSnapshot current() {
+        return current.get();
+    }
+
+    /** The configured model path of the default group; the versioned files are written next to it. */
+    public File getModelFile() {
+        return new File(modelPath).getAbsoluteFile();
+    }
+
+    public File getModelFile(String group) {
+        if (UserDirectory.DEFAULT_GROUP.equals(group))
+            return getModelFile();
+        return new File(new File(getGroupsDir(), group), getModelFile().getName());
+    }
+
+    public File getCascadeFile() {
+        return cascadeFile;
+    }
+
+    /**
+     * Hands the snapshot's detector over to the caller, who then owns and closes it. Returns null when it
+     * was already claimed or the snapshot has been replaced, in which case the caller builds its own.
+     */
+    public CascadeClassifier claimDetector(ModelSnapshot snapshot) {
+        synchronized (detectorLock) {
+            if (unclaimed != snapshot)
+                return null;
+            unclaimed = null;
+            return snapshot.faceDetector();
+        }
+    }
+
+    /** Loads a binary model file and makes it the active version of the group's shard. */
+    public synchronized ModelSnapshot load(String group, File modelFile) throws IOException {
+        long start = System.nanoTime();
+        LbphModel model = LbphModelFile.read(modelFile);
+        return publish(group, model, modelFile.getAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Saves a freshly trained shard to the group's next versioned file and makes it the active version.
+     * Older files beyond {@code face.model.keep-versions} are deleted.
+     */
+    public synchronized ModelSnapshot save(String group, LbphModel model) throws IOException {
+        List<File> versions = versionedFiles(group);
+        long next = versions.isEmpty() ? 1 : fileVersion(versions.get(versions.size() - 1)) + 1;
+        File modelFile = versionedFile(group, next);
+        LbphModelFile.write(model, modelFile);
+        log.info("Model saved to: {}", modelFile.getAbsolutePath());
+        ModelSnapshot snapshot = publish(group, model, modelFile.getAbsolutePath(), 0);
+
+        versions.add(modelFile);
+        for (int i = 0; i < versions.size() - Math.max(keepVersions, 1); i++) {
+            Files.deleteIfExists(versions.get(i).toPath());
+        }
+        return snapshot;
+    }
+
+    /** Versioned model files of one group, oldest first. */
+    public List<File> versionedFiles(String group) {
+        File base = getModelFile(group);
+        File[] files = base.getParentFile().listFiles((dir, name) -> versionPattern().matcher(name).matches());
+        List<File> versions = new ArrayList<>(files != null ? Arrays.asList(files) : List.of());
+        versions.sort(Comparator.comparingLong(this::fileVersion));
+        return versions;
+    }
+
+    private File getGroupsDir() {
+        return new File(getModelFile().getParentFile(), "groups");
+    }
+
+    private File versionedFile(String group, long version) {
+        File base = getModelFile(group);
+        String[] parts = splitExtension(base.getName());
+        return new File(base.getParentFile(), parts[0] + "-v" + version + parts[1]);
+    }
+
+    private long fileVersion(File file) {
+        Matcher matcher = versionPattern().matcher(file.getName());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private Pattern versionPattern() {
+        String[] parts = splitExtension(getModelFile().getName());
+        return Pattern.compile(Pattern.quote(parts[0]) + "-v(\\d+)" + Pattern.quote(parts[1]));
+    }
+
+    private static String[] splitExtension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? new String[] { name, "" } : new String[] { name.substring(0, dot), name.substring(dot) };
+    }
+
+    /** One-time conversion of an OpenCV XML model into the binary format of the default group. */
+    private void importXml(File xmlFile) throws IOException {
+        log.info("Converting XML model {} to binary format", xmlFile.getAbsolutePath());
+        save(UserDirectory.DEFAULT_GROUP, LbphModelFile.importXml(xmlFile));
+    }
+
+    private ModelSnapshot publish(String group, LbphModel model, String source, long loadMillis)
+            throws IOException {
+        CascadeClassifier faceDetector = new CascadeClassifier(cascadeFile.getAbsolutePath());
+        if (faceDetector.empty())
+            throw new IOException("Failed to load Haar Cascade classifier");
+
+        ModelSnapshot previous = current.get();
+        Map<String, LbphModel> shards = new HashMap<>(previous != null ? previous.shards() : Map.of());
+        if (model != null)
+            shards.put(group, model);
+        else
+            shards.remove(group);
+
+        ModelSnapshot snapshot = new ModelSnapshot(versions.incrementAndGet(), Instant.now(), source, loadMillis,
+                faceDetector, Map.copyOf(shards));
+        current.set(snapshot);
+        synchronized (detectorLock) {
+            // Nobody took the retired snapshot's detector, so nothing else can close it.
+            if (unclaimed != null)
+                unclaimed.faceDetector().close();
+            unclaimed = snapshot;
+        }
+        log.info("Model version {} (group {}) loaded from: {}{}", snapshot.version(), group, source,
+                model != null ? " (" + model.size() + " histograms)" : "");
+        return snapshot;
+    }
+
+    private File copyToTempFile(Resource resource, String fileName) throws IOException {
+        Path tempFile = Files.createTempFile("face_", fileName);
+        tempFile.toFile().deleteOnExit();
+        Files.copy(resource.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+        return tempFile.toFile();
+    }
+}
@@ -0,0 +1,185 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+import org.bytedeco.opencv.opencv_face.*;
+
+import com.org.service.ModelRegistry.ModelSnapshot;
+
+import org.bytedeco.javacpp.PointerScope;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of detector/recognizer pairs. Neither {@link CascadeClassifier#detectMultiScale} nor the
+ * OpenCV LBPH histogram computation may be shared between threads, so each request borrows its own
+ * engine and hands it back when done. Engines built for an older model version are dropped on the way
+ * back in and rebuilt lazily from the current snapshot.
+ */
+@Component
+public class RecognizerPool {
+
+    private static final Logger log = LoggerFactory.getLogger(RecognizerPool.class);
+
+    /**
+     * One thread's detector plus a scratch recognizer used only to compute query histograms; the model
+     * shards themselves are shared and immutable, and any shard with the same LBPH parameters can be
+     * searched with this engine. The scratch Mats are reused for gray conversion and the face crop so a
+     * request does not allocate new native buffers for them.
+     */
+    public record FaceEngine(long version, CascadeClassifier faceDetector, Map<String, LbphModel> shards,
+            LbphModel extractorModel, LBPHFaceRecognizer histogramExtractor, Mat grayScratch, Mat faceScratch) {
+
+        public boolean hasRecognizer(String group) {
+            return shards.containsKey(group);
+        }
+
+        /** Predicts against the given group's shard only. */
+        public void predict(String group, Mat face, int[] label, double[] confidence) {
+            LbphModel shard = shards.get(group);
+            shard.predict(histogramOf(shard, face), label, confidence);
+        }
+
+        public List<HistogramIndex.Match> topK(String group, Mat face, int k) {
+            LbphModel shard = shards.get(group);
+            return shard.topK(histogramOf(shard, face), k);
+        }
+
+        private float[] histogramOf(LbphModel shard, Mat face) {
+            if (shard.sameParameters(extractorModel))
+                return LbphModel.histogramOf(histogramExtractor, face);
+            // Only shards trained with non-default LBPH parameters get here.
+            try (LBPHFaceRecognizer extractor = shard.newHistogramExtractor()) {
+                return LbphModel.histogramOf(extractor, face);
+            }
+        }
+
+        /** Frees the engine's native objects, including its detector. */
+        void close() {
+            faceDetector.close();
+            grayScratch.close();
+            faceScratch.close();
+            if (histogramExtractor != null)
+                histogramExtractor.close();
+        }
+    }
+
+    public record PoolStats(int size, int inUse, double utilization, long borrows, long timeouts,
+            double avgWaitMillis, double maxWaitMillis) {
+    }
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Value("${face.pool.size:0}")
+    private int configuredSize;
+
+    @Value("${face.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMillis;
+
+    private final ConcurrentLinkedQueue<FaceEngine> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private Semaphore permits;
+    private int size;
+
+    @PostConstruct
+    public void init() {
+        size = configuredSize > 0 ? configuredSize : Runtime.getRuntime().availableProcessors();
+        permits = new Semaphore(size, true);
+        log.info("Recognizer pool size: {}", size);
+    }
+
+    public FaceEngine borrow() throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new IOException("Timed out waiting for a free recognizer");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a recognizer", e);
+        }
+        long waited = System.nanoTime() - start;
+        borrows.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            ModelSnapshot model = modelRegistry.current();
+            FaceEngine engine;
+            while ((engine = idle.poll()) != null) {
+                if (engine.version() == model.version())
+                    return engine;
+                engine.close();
+            }
+            return createEngine(model);
+        } catch (RuntimeException | IOException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public void release(FaceEngine engine) {
+        if (engine == null)
+            return;
+        if (engine.version() == modelRegistry.current().version())
+            idle.offer(engine);
+        else
+            engine.close();
+        permits.release();
+    }
+
+    public PoolStats stats() {
+        int inUse = size - permits.availablePermits();
+        long count = borrows.get();
+        double avgWait = count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+        return new PoolStats(size, inUse, (double) inUse / size, count, timeouts.get(), avgWait,
+                maxWaitNanos.get() / 1e6);
+    }
+
+    private FaceEngine createEngine(ModelSnapshot model) throws IOException {
+        // The registry already built one detector for this version; take that over first.
+        CascadeClassifier faceDetector = modelRegistry.claimDetector(model);
+        if (faceDetector == null) {
+            faceDetector = new CascadeClassifier(modelRegistry.getCascadeFile().getAbsolutePath());
+            if (faceDetector.empty())
+                throw new IOException("Failed to load Haar Cascade classifier");
+        }
+
+        // Build the extractor for the default shard, or for any shard when the default is not trained yet.
+        LbphModel extractorModel = model.hasModel() ? model.model()
+                : model.shards().values().stream().findFirst().orElse(null);
+        FaceEngine engine = new FaceEngine(model.version(), faceDetector, model.shards(), extractorModel,
+                extractorModel != null ? extractorModel.newHistogramExtractor() : null, new Mat(), new Mat());
+
+        // Engines can be created while the borrowing thread has a PointerScope open; keep them out of it
+        // so closing the request's scope does not free pooled objects.
+        PointerScope scope = PointerScope.getInnerScope();
+        if (scope != null) {
+            scope.detach(engine.faceDetector());
+            scope.detach(engine.grayScratch());
+            scope.detach(engine.faceScratch());
+            if (engine.histogramExtractor() != null)
+                scope.detach(engine.histogramExtractor());
+        }
+        return engine;
+    }
+}
@@ -0,0 +1,175 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.org.dto.TrainingJobStatus;
+import com.org.dto.TrainingReport;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs training off the request thread. Jobs go to a single background thread and are single-flight per
+ * group: submitting while an active job of the same group already covers the request returns that job
+ * instead of starting another one. Jobs for other groups queue behind it.
+ */
+@Service
+public class TrainingJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingJobService.class);
+
+    public static final String QUEUED = "queued";
+    public static final String RUNNING = "running";
+    public static final String SUCCEEDED = "succeeded";
+    public static final String FAILED = "failed";
+    public static final String CANCELLED = "cancelled";
+
+    /** Finished jobs kept around for the status endpoint. */
+    private static final int MAX_HISTORY = 50;
+
+    @Autowired
+    private TrainingService trainingService;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private static final class TrainingJob {
+        final String id;
+        final String group;
+        final Integer userId;
+        final Instant submittedAt = Instant.now();
+        final TrainingProgress progress = new TrainingProgress();
+        volatile String status = QUEUED;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile TrainingReport report;
+        volatile String error;
+
+        TrainingJob(String id, String group, Integer userId) {
+            this.id = id;
+            this.group = group;
+            this.userId = userId;
+        }
+
+        boolean isActive() {
+            return QUEUED.equals(status) || RUNNING.equals(status);
+        }
+
+        TrainingJobStatus snapshot() {
+            return new TrainingJobStatus(id, group, userId, status, progress.getPhase(), progress.getImagesTotal(),
+                    progress.getImagesProcessed(), progress.getFacesFound(), progress.getEtaMillis(), submittedAt,
+                    startedAt, finishedAt, report, error);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "training-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, TrainingJob> jobs = new LinkedHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Starts a full retrain of {@code group}, or an incremental one for {@code userId} in the user's own group,
+     * unless an active job of that group already covers it: a full retrain covers every user of the group,
+     * an incremental job only its own user.
+     */
+    public synchronized TrainingJobStatus submit(String group, Integer userId) {
+        String jobGroup = userId != null ? userDirectory.groupOf(userId) : UserDirectory.checkGroup(group);
+        for (TrainingJob job : jobs.values()) {
+            if (job.isActive() && job.group.equals(jobGroup)
+                    && (job.userId == null || job.userId.equals(userId)))
+                return job.snapshot();
+        }
+
+        TrainingJob job = new TrainingJob("train-" + ids.incrementAndGet(), jobGroup, userId);
+        jobs.put(job.id, job);
+        pruneHistory();
+        executor.execute(() -> run(job));
+        return job.snapshot();
+    }
+
+    public synchronized Optional<TrainingJobStatus> get(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(TrainingJob::snapshot);
+    }
+
+    public synchronized List<TrainingJobStatus> list() {
+        List<TrainingJobStatus> statuses = new ArrayList<>(jobs.size());
+        for (TrainingJob job : jobs.values()) {
+            statuses.add(job.snapshot());
+        }
+        Collections.reverse(statuses);
+        return statuses;
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled immediately; a running one stops at its next image
+     * or phase boundary without publishing a model.
+     */
+    public synchronized Optional<TrainingJobStatus> cancel(String jobId) {
+        TrainingJob job = jobs.get(jobId);
+        if (job == null)
+            return Optional.empty();
+        if (job.isActive()) {
+            job.progress.cancel();
+            if (QUEUED.equals(job.status))
+                finish(job, CANCELLED, null, null);
+        }
+        return Optional.of(job.snapshot());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            for (TrainingJob job : jobs.values()) {
+                if (job.isActive())
+                    job.progress.cancel();
+            }
+        }
+        executor.shutdownNow();
+    }
+
+    private void run(TrainingJob job) {
+        if (job.progress.isCancelRequested())
+            return;
+        job.startedAt = Instant.now();
+        job.status = RUNNING;
+        try {
+            TrainingReport report = job.userId == null
+                    ? trainingService.trainModel(job.group, job.progress)
+                    : trainingService.trainUser(job.userId, job.progress);
+            finish(job, SUCCEEDED, report, null);
+        } catch (CancellationException e) {
+            log.info("Training job {} cancelled", job.id);
+            finish(job, CANCELLED, null, null);
+        } catch (Exception e) {
+            log.warn("Training job {} failed", job.id, e);
+            finish(job, FAILED, null, e.getMessage());
+        }
+    }
+
+    private void finish(TrainingJob job, String status, TrainingReport report, String error) {
+        job.report = report;
+        job.error = error;
+        job.finishedAt = Instant.now();
+        job.status = status;
+    }
+
+    private void pruneHistory() {
+        Iterator<TrainingJob> it = jobs.values().iterator();
+        while (jobs.size() > MAX_HISTORY && it.hasNext()) {
+            if (!it.next().isActive())
+                it.remove();
+        }
+    }
+}
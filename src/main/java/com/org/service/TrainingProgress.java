@@ -0,0 +1,87 @@
+package com.org.service;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live progress of one training run, updated by the training workers and read by the job status endpoint.
+ * Cancellation is cooperative: workers call {@link #checkCancelled()} between images.
+ */
+public class TrainingProgress {
+
+    public static final String QUEUED = "queued";
+    public static final String COMPACTING = "compacting";
+    public static final String SCANNING = "scanning";
+    public static final String EXTRACTING = "extracting";
+    public static final String TRAINING = "training";
+    public static final String SAVING = "saving";
+    public static final String DONE = "done";
+
+    private final AtomicInteger imagesProcessed = new AtomicInteger();
+    private final AtomicInteger facesFound = new AtomicInteger();
+    private volatile int imagesTotal;
+    private volatile String phase = QUEUED;
+    private volatile long extractStartNanos;
+    private volatile boolean cancelRequested;
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public int getImagesTotal() {
+        return imagesTotal;
+    }
+
+    public int getImagesProcessed() {
+        return imagesProcessed.get();
+    }
+
+    public int getFacesFound() {
+        return facesFound.get();
+    }
+
+    /**
+     * Remaining time estimated from the face extraction rate so far, which dominates a training run.
+     * Null until the first image has been processed.
+     */
+    public Long getEtaMillis() {
+        int processed = imagesProcessed.get();
+        if (!EXTRACTING.equals(phase) || processed == 0)
+            return null;
+        long elapsed = System.nanoTime() - extractStartNanos;
+        return TimeUnit.NANOSECONDS.toMillis(elapsed / processed * (imagesTotal - processed));
+    }
+
+    public void cancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /** Moves to the next phase; a pending cancel takes effect here unless the run is already done. */
+    void phase(String phase) {
+        if (!DONE.equals(phase))
+            checkCancelled();
+        if (EXTRACTING.equals(phase))
+            extractStartNanos = System.nanoTime();
+        this.phase = phase;
+    }
+
+    void imagesTotal(int imagesTotal) {
+        this.imagesTotal = imagesTotal;
+    }
+
+    void imageProcessed(boolean faceFound) {
+        imagesProcessed.incrementAndGet();
+        if (faceFound)
+            facesFound.incrementAndGet();
+    }
+
+    void checkCancelled() {
+        if (cancelRequested)
+            throw new CancellationException("Training cancelled");
+    }
+}
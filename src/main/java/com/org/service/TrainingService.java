@@ -0,0 +1,459 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.org.dto.CompactionReport;
+import com.org.dto.CompactionReport.UserCompaction;
+import com.org.dto.TrainingReport;
+import com.org.model.UserProfile;
+import com.org.service.ImageQuality.Assessment;
+import com.org.service.ModelRegistry.ModelSnapshot;
+
+import org.bytedeco.javacpp.PointerScope;
+import org.bytedeco.opencv.opencv_core.*;
+import org.bytedeco.opencv.opencv_objdetect.*;
+import org.bytedeco.opencv.opencv_face.*;
+
+import static org.bytedeco.opencv.global.opencv_imgproc.*;
+import static org.bytedeco.opencv.global.opencv_imgcodecs.*;
+import static org.bytedeco.opencv.global.opencv_core.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds the LBPH model from the per-user folders under the training directory. Image decoding and face
+ * extraction run in parallel; a single user's histograms can be swapped into the current model instead of
+ * retraining everyone. Folders can be compacted explicitly (or before every run with
+ * {@code face.quality.compact-before-train}) so blurred, badly exposed and near-duplicate images never become
+ * histograms.
+ */
+@Service
+public class TrainingService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingService.class);
+
+    @Autowired
+    private ModelRegistry modelRegistry;
+
+    @Value("${face.training.dir:C:/training_images}")
+    private String trainingDir;
+
+    @Autowired
+    private ImageQuality imageQuality;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Value("${face.training.parallelism:0}")
+    private int configuredParallelism;
+
+    @Value("${face.quality.compact-before-train:false}")
+    private boolean compactBeforeTrain;
+
+    /** Subfolder of a user folder that compaction moves dropped images into. */
+    public static final String REJECTED_DIR = "rejected";
+
+    private record FaceSample(int label, Mat face) {
+    }
+
+    private record ScoredImage(File file, Assessment assessment) {
+    }
+
+    private static final class PhaseTimes {
+        final LongAdder decodeNanos = new LongAdder();
+        final LongAdder detectNanos = new LongAdder();
+    }
+
+    public File getTrainingDir() {
+        return new File(trainingDir);
+    }
+
+    /**
+     * Folder holding a group's {@code user<N>} folders: the training directory itself for the default group,
+     * {@code groups/<group>} under it for the others.
+     */
+    public File getGroupDir(String group) {
+        if (UserDirectory.DEFAULT_GROUP.equals(group))
+            return getTrainingDir();
+        return new File(new File(trainingDir, "groups"), UserDirectory.checkGroup(group));
+    }
+
+    /** The user's folder inside the group the user directory assigns them to. */
+    public File getUserDir(int userId) {
+        return new File(getGroupDir(userDirectory.groupOf(userId)), "user" + userId);
+    }
+
+    /**
+     * Adds or updates a user in the directory. When the user changes group, their image folder moves into
+     * the new group's folder in the same step, so both groups train from where the directory says the user
+     * lives. Runs under the training lock so a move never races a scan.
+     */
+    public synchronized UserProfile assignUser(int userId, String name, String group) throws IOException {
+        String newGroup = UserDirectory.checkGroup(group);
+        if (!userDirectory.contains(userId) || userDirectory.groupOf(userId).equals(newGroup))
+            return userDirectory.save(userId, name, newGroup);
+
+        File from = getUserDir(userId);
+        File to = new File(getGroupDir(newGroup), from.getName());
+        if (!from.isDirectory())
+            return userDirectory.save(userId, name, newGroup);
+        if (to.exists())
+            throw new IOException("Cannot move " + from.getName() + " to group " + newGroup + ": "
+                    + to.getAbsolutePath() + " already exists");
+
+        Files.createDirectories(to.getParentFile().toPath());
+        Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        try {
+            return userDirectory.save(userId, name, newGroup);
+        } catch (RuntimeException e) {
+            Files.move(to.toPath(), from.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+    }
+
+    /** Retrains the default group's model from every user folder. */
+    public TrainingReport trainModel() throws IOException {
+        return trainModel(UserDirectory.DEFAULT_GROUP, new TrainingProgress());
+    }
+
+    /**
+     * Retrains one group's shard from its user folders, reporting into {@code progress}. Throws
+     * {@link CancellationException} if the run is cancelled; the served model is then left untouched.
+     */
+    public synchronized TrainingReport trainModel(String group, TrainingProgress progress) throws IOException {
+        long start = System.nanoTime();
+        File root = getGroupDir(group);
+        if (!root.exists() || !root.isDirectory()) {
+            throw new IOException("Training directory not found: " + root.getAbsolutePath());
+        }
+        if (compactBeforeTrain) {
+            progress.phase(TrainingProgress.COMPACTING);
+            log.info("Compaction before training: {}", compact(group, null, false));
+        }
+
+        progress.phase(TrainingProgress.SCANNING);
+        Map<File, Integer> imageLabels = new LinkedHashMap<>();
+        File[] userDirs = listUserDirs(root);
+        for (File userDir : userDirs) {
+            int userId = Integer.parseInt(userDir.getName().replace("user", ""));
+            for (File imageFile : listImages(userDir)) {
+                imageLabels.put(imageFile, userId);
+            }
+        }
+
+        PhaseTimes times = new PhaseTimes();
+        long extractStart = System.nanoTime();
+        List<FaceSample> samples = extractFaces(imageLabels, times, progress);
+        long extractNanos = System.nanoTime() - extractStart;
+        if (samples.isEmpty())
+            throw new IOException("No valid training images found");
+
+        progress.phase(TrainingProgress.TRAINING);
+        long trainStart = System.nanoTime();
+        LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create();
+        recognizer.train(toMatVector(samples), toLabels(samples));
+        LbphModel trained = LbphModel.fromRecognizer(recognizer);
+        long trainNanos = System.nanoTime() - trainStart;
+
+        return save(group, trained, "full", userDirs.length, imageLabels.size(), samples.size(), times,
+                extractNanos, trainNanos, start, progress);
+    }
+
+    /**
+     * Replaces one user's samples in their group's current shard with histograms of their current images.
+     * Falls back to a full train of the group when the shard does not exist yet.
+     */
+    public TrainingReport trainUser(int userId) throws IOException {
+        return trainUser(userId, new TrainingProgress());
+    }
+
+    /** Same as {@link #trainUser(int)}, reporting into {@code progress}. */
+    public synchronized TrainingReport trainUser(int userId, TrainingProgress progress) throws IOException {
+        String group = userDirectory.groupOf(userId);
+        LbphModel shard = modelRegistry.current().model(group);
+        if (shard == null)
+            return trainModel(group, progress);
+
+        long start = System.nanoTime();
+        File userDir = getUserDir(userId);
+        if (!userDir.isDirectory())
+            throw new IOException("Folder not found for user: " + userId);
+        if (compactBeforeTrain) {
+            progress.phase(TrainingProgress.COMPACTING);
+            log.info("Compaction before training: {}", compact(group, userId, false));
+        }
+
+        progress.phase(TrainingProgress.SCANNING);
+        Map<File, Integer> imageLabels = new LinkedHashMap<>();
+        for (File imageFile : listImages(userDir)) {
+            imageLabels.put(imageFile, userId);
+        }
+
+        PhaseTimes times = new PhaseTimes();
+        long extractStart = System.nanoTime();
+        List<FaceSample> samples = extractFaces(imageLabels, times, progress);
+        long extractNanos = System.nanoTime() - extractStart;
+        if (samples.isEmpty())
+            throw new IOException("No valid training images found for user: " + userId);
+
+        progress.phase(TrainingProgress.TRAINING);
+        long trainStart = System.nanoTime();
+        // Compute the new histograms with the current parameters and swap them in for the user's old ones
+        // in a copy of the served shard, so repeated runs do not grow the gallery.
+        LbphModel updated;
+        try (LBPHFaceRecognizer extractor = shard.newHistogramExtractor()) {
+            extractor.train(toMatVector(samples), toLabels(samples));
+            updated = shard.replaceLabel(userId, LbphModel.fromRecognizer(extractor));
+        }
+        long trainNanos = System.nanoTime() - trainStart;
+
+        return save(group, updated, "incremental", 1, imageLabels.size(), samples.size(), times, extractNanos,
+                trainNanos, start, progress);
+    }
+
+    /**
+     * Appends already extracted histograms to a group's shard, or starts the shard with them, and saves the
+     * result. Serialized with training runs so an append and a retrain of the same shard never overwrite
+     * each other.
+     */
+    public synchronized ModelSnapshot appendToShard(String group, LbphModel samples) throws IOException {
+        LbphModel shard = modelRegistry.current().model(group);
+        if (shard != null && !shard.sameParameters(samples))
+            throw new IOException("Model of group " + group + " uses different LBPH parameters");
+        return modelRegistry.save(group, shard != null ? shard.append(samples) : samples);
+    }
+
+    /**
+     * Scores every image of one user (or all users of {@code group} when {@code userId} is null) and moves
+     * the ones that fail the quality gate, or nearly duplicate a sharper image of the same user, into the
+     * user's {@value #REJECTED_DIR} folder. A dry run only reports.
+     */
+    public synchronized CompactionReport compact(String group, Integer userId, boolean dryRun) throws IOException {
+        long start = System.nanoTime();
+        List<File> userDirs;
+        if (userId != null) {
+            File userDir = getUserDir(userId);
+            if (!userDir.isDirectory())
+                throw new IOException("Folder not found for user: " + userId);
+            userDirs = List.of(userDir);
+        } else {
+            File root = getGroupDir(group);
+            if (!root.isDirectory())
+                throw new IOException("Training directory not found: " + root.getAbsolutePath());
+            userDirs = Arrays.asList(listUserDirs(root));
+        }
+
+        String cascadePath = modelRegistry.getCascadeFile().getAbsolutePath();
+        ThreadLocal<CascadeClassifier> detectors = ThreadLocal.withInitial(() -> new CascadeClassifier(cascadePath));
+        List<UserCompaction> perUser = inPool("Compaction", () -> userDirs.parallelStream()
+                .map(userDir -> compactUser(userDir, detectors.get(), dryRun))
+                .toList());
+
+        int kept = 0;
+        int dropped = 0;
+        Map<String, Integer> droppedByReason = new TreeMap<>();
+        for (UserCompaction user : perUser) {
+            kept += user.kept();
+            dropped += user.dropped();
+            user.droppedByReason().forEach((reason, count) -> droppedByReason.merge(reason, count, Integer::sum));
+        }
+        return new CompactionReport(dryRun, perUser.size(), kept + dropped, kept, dropped, droppedByReason,
+                perUser, millis(System.nanoTime() - start));
+    }
+
+    private UserCompaction compactUser(File userDir, CascadeClassifier faceDetector, boolean dryRun) {
+        int userId = Integer.parseInt(userDir.getName().replace("user", ""));
+        Map<File, String> rejected = new LinkedHashMap<>();
+        List<ScoredImage> candidates = new ArrayList<>();
+
+        for (File imageFile : listImages(userDir)) {
+            try (PointerScope scope = new PointerScope()) {
+                Mat image = imread(imageFile.getAbsolutePath(), IMREAD_GRAYSCALE);
+                if (image.empty()) {
+                    rejected.put(imageFile, ImageQuality.UNREADABLE);
+                    continue;
+                }
+
+                // Score the same crop training would use.
+                RectVector faces = new RectVector();
+                faceDetector.detectMultiScale(image, faces);
+                if (faces.size() == 0) {
+                    rejected.put(imageFile, ImageQuality.NO_FACE);
+                    continue;
+                }
+                Rect face = faces.get(0);
+                Mat faceROI = new Mat();
+                resize(new Mat(image, face), faceROI, new Size(160, 160));
+
+                Assessment assessment = imageQuality.assess(faceROI, face.width());
+                if (assessment.accepted())
+                    candidates.add(new ScoredImage(imageFile, assessment));
+                else
+                    rejected.put(imageFile, assessment.rejection());
+            }
+        }
+
+        // Sharpest first, so each cluster of near-duplicates keeps its best image.
+        candidates.sort(Comparator.comparingDouble((ScoredImage c) -> c.assessment().sharpness()).reversed());
+        List<Long> keptHashes = new ArrayList<>();
+        for (ScoredImage candidate : candidates) {
+            if (imageQuality.isNearDuplicate(candidate.assessment().hash(), keptHashes))
+                rejected.put(candidate.file(), ImageQuality.DUPLICATE);
+            else
+                keptHashes.add(candidate.assessment().hash());
+        }
+
+        Map<String, Integer> droppedByReason = new TreeMap<>();
+        rejected.values().forEach(reason -> droppedByReason.merge(reason, 1, Integer::sum));
+        if (!dryRun && !rejected.isEmpty()) {
+            File rejectedDir = new File(userDir, REJECTED_DIR);
+            rejectedDir.mkdirs();
+            for (File file : rejected.keySet()) {
+                try {
+                    Files.move(file.toPath(), new File(rejectedDir, file.getName()).toPath(),
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return new UserCompaction(userId, keptHashes.size(), rejected.size(), droppedByReason);
+    }
+
+    private TrainingReport save(String group, LbphModel trained, String mode, int users, int imagesScanned,
+            int facesFound, PhaseTimes times, long extractNanos, long trainNanos, long start, TrainingProgress progress)
+            throws IOException {
+        // Last point at which a cancel still leaves the served model untouched.
+        progress.phase(TrainingProgress.SAVING);
+        long saveStart = System.nanoTime();
+        ModelSnapshot model = modelRegistry.save(group, trained);
+        long saveNanos = System.nanoTime() - saveStart;
+        progress.phase(TrainingProgress.DONE);
+
+        TrainingReport report = new TrainingReport(group, mode, users, imagesScanned, facesFound, parallelism(),
+                millis(times.decodeNanos.sum()), millis(times.detectNanos.sum()), millis(extractNanos),
+                millis(trainNanos), millis(saveNanos), millis(System.nanoTime() - start), model.version());
+        log.info("Training finished: {}", report);
+        return report;
+    }
+
+    /** Decodes, converts and detects faces across a bounded fork-join pool, one cascade per worker thread. */
+    private List<FaceSample> extractFaces(Map<File, Integer> imageLabels, PhaseTimes times,
+            TrainingProgress progress) throws IOException {
+        String cascadePath = modelRegistry.getCascadeFile().getAbsolutePath();
+        ThreadLocal<CascadeClassifier> detectors = ThreadLocal.withInitial(() -> new CascadeClassifier(cascadePath));
+
+        progress.imagesTotal(imageLabels.size());
+        progress.phase(TrainingProgress.EXTRACTING);
+        return inPool("Face extraction", () -> imageLabels.entrySet().parallelStream()
+                .map(entry -> {
+                    progress.checkCancelled();
+                    FaceSample sample = extractFace(entry.getKey(), entry.getValue(), detectors.get(), times);
+                    progress.imageProcessed(sample != null);
+                    return sample;
+                })
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    /** Runs a parallel-stream task on a fork-join pool bounded by {@code face.training.parallelism}. */
+    private <T> T inPool(String phase, Callable<T> task) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism());
+        try {
+            return pool.submit(task).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException cancelled)
+                throw cancelled;
+            throw new IOException(phase + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during " + phase.toLowerCase(), e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private FaceSample extractFace(File imageFile, int userId, CascadeClassifier faceDetector, PhaseTimes times) {
+        long decodeStart = System.nanoTime();
+        Mat image = imread(imageFile.getAbsolutePath());
+        if (image.empty())
+            return null;
+
+        if (image.channels() > 1) {
+            Mat gray = new Mat();
+            cvtColor(image, gray, COLOR_BGR2GRAY);
+            image = gray;
+        }
+        long detectStart = System.nanoTime();
+        times.decodeNanos.add(detectStart - decodeStart);
+
+        RectVector faces = new RectVector();
+        faceDetector.detectMultiScale(image, faces);
+        times.detectNanos.add(System.nanoTime() - detectStart);
+        if (faces.size() == 0)
+            return null;
+
+        Rect face = faces.get(0);
+        Mat faceROI = new Mat(image, face);
+        resize(faceROI, faceROI, new Size(160, 160));
+        return new FaceSample(userId, faceROI);
+    }
+
+    /** The {@code user<N>} folders directly under a group folder; anything else, like {@code groups}, is skipped. */
+    private File[] listUserDirs(File groupDir) {
+        File[] userDirs = groupDir.listFiles(dir -> dir.isDirectory() && dir.getName().matches("user\\d+"));
+        return userDirs != null ? userDirs : new File[0];
+    }
+
+    private File[] listImages(File userDir) {
+        File[] images = userDir.listFiles((dir, name) -> name.endsWith(".jpg") || name.endsWith(".png"));
+        return images != null ? images : new File[0];
+    }
+
+    private MatVector toMatVector(List<FaceSample> samples) {
+        MatVector images = new MatVector(samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            images.put(i, samples.get(i).face());
+        }
+        return images;
+    }
+
+    private Mat toLabels(List<FaceSample> samples) {
+        Mat labels = new Mat(samples.size(), 1, CV_32SC1);
+        IntBuffer labelsBuf = labels.createBuffer();
+        for (int i = 0; i < samples.size(); i++) {
+            labelsBuf.put(i, samples.get(i).label());
+        }
+        return labels;
+    }
+
+    private int parallelism() {
+        return configuredParallelism > 0 ? configuredParallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,110 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import com.org.model.UserProfile;
+import com.org.repository.UserProfileRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Persisted user directory: display names and the group (model shard) each user belongs to. Lookups are
+ * served from memory; the table is read once at startup and written through on every change.
+ */
+@Service
+public class UserDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    public static final String DEFAULT_GROUP = "default";
+
+    private static final Pattern GROUP_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private Environment environment;
+
+    private final Map<Integer, UserProfile> users = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (userProfileRepository.count() == 0) {
+            // The users that used to be hard-coded in FaceService.
+            save(1, "Mudit Tiwari", DEFAULT_GROUP);
+            save(2, "Rohit Sharma", DEFAULT_GROUP);
+            save(3, "Virat Kohli", DEFAULT_GROUP);
+        }
+        for (UserProfile user : userProfileRepository.findAll()) {
+            users.put(user.getId(), user);
+        }
+        log.info("User directory loaded: {} users", users.size());
+    }
+
+    public boolean contains(int userId) {
+        return users.containsKey(userId);
+    }
+
+    public String nameOf(int userId) {
+        UserProfile user = users.get(userId);
+        return user != null ? user.getName() : "Unknown";
+    }
+
+    public String groupOf(int userId) {
+        UserProfile user = users.get(userId);
+        return user != null ? user.getGroupName() : DEFAULT_GROUP;
+    }
+
+    public List<UserProfile> all() {
+        List<UserProfile> all = new ArrayList<>(users.values());
+        all.sort(Comparator.comparing(UserProfile::getId));
+        return all;
+    }
+
+    /**
+     * Adds or updates a user. Moving a user to another group only takes effect in recognition once both
+     * groups have been retrained.
+     */
+    public synchronized UserProfile save(int userId, String name, String group) {
+        UserProfile user = new UserProfile();
+        user.setId(userId);
+        user.setName(name);
+        user.setGroupName(checkGroup(group));
+        UserProfile saved = userProfileRepository.save(user);
+        users.put(userId, saved);
+        return saved;
+    }
+
+    /**
+     * The group a recognition request should search: the explicit group if given, else the group configured
+     * for the kiosk as {@code face.kiosk.<kiosk>.group}, else {@value #DEFAULT_GROUP}.
+     */
+    public String resolveGroup(String group, String kiosk) {
+        if (group != null && !group.isBlank())
+            return checkGroup(group);
+        if (kiosk != null && !kiosk.isBlank())
+            return checkGroup(environment.getProperty("face.kiosk." + kiosk + ".group", DEFAULT_GROUP));
+        return DEFAULT_GROUP;
+    }
+
+    /** Group names end up in directory names, so only a safe character set is allowed. */
+    public static String checkGroup(String group) {
+        if (group == null || group.isBlank())
+            return DEFAULT_GROUP;
+        if (!GROUP_NAME.matcher(group).matches())
+            throw new IllegalArgumentException("Invalid group name: " + group);
+        return group;
+    }
+}
@@ -0,0 +1,55 @@
+package com.org.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD chi-square distance. Kept in its own class so it is only loaded when the
+ * {@code jdk.incubator.vector} module is available; see {@link HistogramIndex#VECTOR_ENABLED}.
+ */
+final class VectorChiSquare {
+
+    /**
+     * Bins are widened to double before any arithmetic and the sum is kept in double, like OpenCV and
+     * {@link HistogramIndex#chiSquare}, so the two paths only differ in summation order.
+     */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED
+            .withShape(VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    /** OpenCV skips bins whose sum is within DBL_EPSILON of zero. */
+    private static final double EPSILON = Math.ulp(1.0);
+
+    private VectorChiSquare() {
+    }
+
+    static double distance(float[] query, float[] histograms, int offset, int length) {
+        DoubleVector acc = DoubleVector.zero(DOUBLES);
+        int step = FLOATS.length();
+        int upper = FLOATS.loopBound(length);
+        int j = 0;
+        for (; j < upper; j += step) {
+            DoubleVector q = (DoubleVector) FloatVector.fromArray(FLOATS, query, j)
+                    .convertShape(VectorOperators.F2D, DOUBLES, 0);
+            DoubleVector h = (DoubleVector) FloatVector.fromArray(FLOATS, histograms, offset + j)
+                    .convertShape(VectorOperators.F2D, DOUBLES, 0);
+            DoubleVector a = q.sub(h);
+            DoubleVector b = q.add(h);
+            // Empty bins on both sides give 0/0; those lanes contribute nothing.
+            VectorMask<Double> nonEmpty = b.abs().compare(VectorOperators.GT, EPSILON);
+            acc = acc.add(a.mul(a).div(b), nonEmpty);
+        }
+        double result = acc.reduceLanes(VectorOperators.ADD);
+        for (; j < length; j++) {
+            double a = (double) query[j] - histograms[offset + j];
+            double b = (double) query[j] + histograms[offset + j];
+            if (Math.abs(b) > EPSILON)
+                result += a * a / b;
+        }
+        return result * 2;
+    }
+}
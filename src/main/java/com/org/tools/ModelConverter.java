@@ -0,0 +1,40 @@
+package com.org.tools;
+
+import java.io.File;
+
+import com.org.service.LbphModel;
+import com.org.service.LbphModelFile;
+
+/**
+ * Converts LBPH models between OpenCV's XML format and the binary format served by the application.
+ *
+ * <pre>
+ * java -Dloader.main=com.org.tools.ModelConverter -cp target/FaceAttendanceSystem-0.0.1-SNAPSHOT.jar \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher import lbph_model.xml lbph_model.bin
+ * </pre>
+ */
+public class ModelConverter {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.out.println("Usage: ModelConverter import <model.xml> <model.bin>");
+            System.out.println("       ModelConverter export <model.bin> <model.xml>");
+            System.exit(1);
+        }
+
+        File source = new File(args[1]);
+        File target = new File(args[2]);
+        long start = System.nanoTime();
+        LbphModel model;
+        if (args[0].equals("import")) {
+            model = LbphModelFile.importXml(source);
+            LbphModelFile.write(model, target);
+        } else {
+            model = LbphModelFile.read(source);
+            LbphModelFile.exportXml(model, target);
+        }
+        System.out.println("Converted " + model.size() + " histograms from " + source + " to " + target + " in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms (" + source.length() + " -> " + target.length()
+                + " bytes)");
+    }
+}
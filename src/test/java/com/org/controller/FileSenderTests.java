@@ -0,0 +1,40 @@
+package com.org.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class FileSenderTests {
+
+	private static final long LENGTH = 100;
+
+	@Test
+	void parsesSingleRanges() {
+		assertArrayEquals(new long[] { 0, 10 }, FileSender.parseRange("bytes=0-9", LENGTH));
+		assertArrayEquals(new long[] { 90, 100 }, FileSender.parseRange("bytes=90-", LENGTH));
+		// The last position is clamped to the file.
+		assertArrayEquals(new long[] { 50, 100 }, FileSender.parseRange("bytes=50-500", LENGTH));
+	}
+
+	@Test
+	void parsesSuffixRanges() {
+		assertArrayEquals(new long[] { 95, 100 }, FileSender.parseRange("bytes=-5", LENGTH));
+		assertArrayEquals(new long[] { 0, 100 }, FileSender.parseRange("bytes=-500", LENGTH));
+	}
+
+	@Test
+	void unsatisfiableRangesAreRejected() {
+		assertNull(FileSender.parseRange("bytes=100-", LENGTH));
+		assertNull(FileSender.parseRange("bytes=200-300", LENGTH));
+		assertNull(FileSender.parseRange("bytes=-0", LENGTH));
+	}
+
+	@Test
+	void unsupportedOrInvalidRangesAreIgnored() {
+		assertEquals(0, FileSender.parseRange("bytes=0-9,20-29", LENGTH).length);
+		assertEquals(0, FileSender.parseRange("bytes=5-3", LENGTH).length);
+		assertEquals(0, FileSender.parseRange("items=0-9", LENGTH).length);
+		assertEquals(0, FileSender.parseRange("bytes=-", LENGTH).length);
+		assertEquals(0, FileSender.parseRange("bytes=99999999999999999999-", LENGTH).length);
+	}
+}
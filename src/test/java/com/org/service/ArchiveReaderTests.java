@@ -0,0 +1,173 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+class ArchiveReaderTests {
+
+	private static final byte[] IMAGE = "not really a jpeg".getBytes(StandardCharsets.US_ASCII);
+
+	@Test
+	void readsUstarEntriesWithPrefix() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		entry(tar, "enroll", "user1/a.jpg", '0', IMAGE);
+		entry(tar, "", "user2/", '5', new byte[0]);
+		entry(tar, "", "user2/b.jpg", '0', IMAGE);
+		end(tar);
+
+		try (ArchiveReader archive = open(tar)) {
+			ArchiveReader.Entry first = archive.next();
+			assertEquals("enroll/user1/a.jpg", first.name());
+			assertEquals(IMAGE.length, first.size());
+			assertArrayEquals(IMAGE, archive.read(1024));
+			// The unread entry is skipped and the directory is not returned.
+			assertEquals("user2/b.jpg", archive.next().name());
+			assertNull(archive.read(4), "entries over the limit are not read");
+			assertNull(archive.next());
+		}
+	}
+
+	@Test
+	void readsGnuLongNames() throws IOException {
+		String name = "enroll/" + "x".repeat(150) + "/user3/c.jpg";
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		entry(tar, "", "././@LongLink", 'L', (name + "\0").getBytes(StandardCharsets.UTF_8));
+		entry(tar, "", name.substring(0, 99), '0', IMAGE);
+		end(tar);
+
+		try (ArchiveReader archive = open(tar)) {
+			assertEquals(name, archive.next().name());
+			assertArrayEquals(IMAGE, archive.read(1024));
+		}
+	}
+
+	@Test
+	void readsPaxPaths() throws IOException {
+		String name = "enroll/ünïcode-" + "y".repeat(120) + "/user4/d.jpg";
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		entry(tar, "", "PaxHeaders/d.jpg", 'x', paxRecords("mtime=1700000000.5", "path=" + name));
+		entry(tar, "", "user4/d.jpg", '0', IMAGE);
+		end(tar);
+
+		try (ArchiveReader archive = open(tar)) {
+			assertEquals(name, archive.next().name());
+		}
+	}
+
+	@Test
+	void readsZipEntries() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("user5/"));
+			zip.putNextEntry(new ZipEntry("user5/e.jpg"));
+			zip.write(IMAGE);
+		}
+
+		try (ArchiveReader archive = open(bytes)) {
+			assertEquals("user5/e.jpg", archive.next().name());
+			assertArrayEquals(IMAGE, archive.read(1024));
+			assertNull(archive.next());
+		}
+	}
+
+	@Test
+	void rejectsTruncatedArchives() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		entry(tar, "", "user1/a.jpg", '0', IMAGE);
+		byte[] headerOnly = Arrays.copyOf(tar.toByteArray(), 512 + 4);
+		byte[] halfHeader = Arrays.copyOf(tar.toByteArray(), 300);
+
+		try (ArchiveReader archive = ArchiveReader.open(new ByteArrayInputStream(headerOnly))) {
+			archive.next();
+			assertThrows(EOFException.class, () -> archive.read(1024));
+		}
+		try (ArchiveReader archive = ArchiveReader.open(new ByteArrayInputStream(halfHeader))) {
+			assertThrows(EOFException.class, archive::next);
+		}
+	}
+
+	@Test
+	void rejectsOversizedExtendedHeaders() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		// Only the header claims the size; the reader must refuse before buffering anything.
+		tar.write(header("", "././@LongLink", 'L', Integer.MAX_VALUE + 1L));
+		try (ArchiveReader archive = open(tar)) {
+			IOException e = assertThrows(IOException.class, archive::next);
+			assertTrue(e.getMessage().contains("limit"));
+		}
+	}
+
+	@Test
+	void rejectsMalformedPaxRecords() throws IOException {
+		for (String records : new String[] { "abc path=x\n", "99 path=x\n", "3 path=x\n", "10 path=xy" }) {
+			ByteArrayOutputStream tar = new ByteArrayOutputStream();
+			entry(tar, "", "PaxHeaders/f.jpg", 'x', records.getBytes(StandardCharsets.UTF_8));
+			entry(tar, "", "user6/f.jpg", '0', IMAGE);
+			end(tar);
+			try (ArchiveReader archive = open(tar)) {
+				assertThrows(IOException.class, archive::next, records);
+			}
+		}
+	}
+
+	private static ArchiveReader open(ByteArrayOutputStream bytes) throws IOException {
+		return ArchiveReader.open(new ByteArrayInputStream(bytes.toByteArray()));
+	}
+
+	private static void entry(ByteArrayOutputStream tar, String prefix, String name, char type, byte[] data)
+			throws IOException {
+		tar.write(header(prefix, name, type, data.length));
+		tar.write(data);
+		tar.write(new byte[(512 - data.length % 512) % 512]);
+	}
+
+	private static void end(ByteArrayOutputStream tar) throws IOException {
+		tar.write(new byte[1024]);
+	}
+
+	private static byte[] header(String prefix, String name, char type, long size) {
+		byte[] header = new byte[512];
+		put(header, 0, name);
+		put(header, 100, "0000644");
+		put(header, 124, String.format("%011o", size));
+		put(header, 136, "00000000000");
+		header[156] = (byte) type;
+		put(header, 257, "ustar");
+		put(header, 263, "00");
+		put(header, 345, prefix);
+		Arrays.fill(header, 148, 156, (byte) ' ');
+		long sum = 0;
+		for (byte b : header)
+			sum += b & 0xff;
+		put(header, 148, String.format("%06o", sum));
+		return header;
+	}
+
+	private static void put(byte[] header, int offset, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(bytes, 0, header, offset, bytes.length);
+	}
+
+	/** pax records, each prefixed with its own length in bytes. */
+	private static byte[] paxRecords(String... records) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (String record : records) {
+			int body = record.getBytes(StandardCharsets.UTF_8).length + 2;
+			int length = body + String.valueOf(body).length();
+			if (String.valueOf(length).length() != String.valueOf(body).length())
+				length++;
+			out.writeBytes((length + " " + record + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		return out.toByteArray();
+	}
+}
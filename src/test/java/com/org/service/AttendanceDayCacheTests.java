@@ -0,0 +1,144 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.org.repository.AttendanceRepository;
+import com.org.service.AttendanceWriter.PendingMark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AttendanceDayCacheTests {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+	private final MutableClock clock = new MutableClock(DAY.atTime(23, 59, 30));
+
+	private AttendanceRepository repository;
+	private AttendanceWriter writer;
+	private AttendanceDayCache cache;
+	private AttendanceService service;
+
+	@BeforeEach
+	void setUp() {
+		repository = mock(AttendanceRepository.class);
+		writer = mock(AttendanceWriter.class);
+		when(repository.findUserIdsByDate(DAY)).thenReturn(List.of(1, 2));
+		when(repository.findUserIdsByDate(DAY.plusDays(1))).thenReturn(List.of(2));
+
+		cache = new AttendanceDayCache();
+		ReflectionTestUtils.setField(cache, "attendanceRepository", repository);
+		ReflectionTestUtils.setField(cache, "clock", clock);
+		cache.init();
+
+		service = new AttendanceService();
+		ReflectionTestUtils.setField(service, "dayCache", cache);
+		ReflectionTestUtils.setField(service, "attendanceWriter", writer);
+		ReflectionTestUtils.setField(service, "faceMetrics", new FaceMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(service, "writeBehind", true);
+		ReflectionTestUtils.setField(service, "clock", clock);
+	}
+
+	@Test
+	void warmsFromTheDatabaseAtStartup() {
+		assertFalse(service.markIfAbsent(1));
+		assertTrue(service.markIfAbsent(3));
+		assertFalse(service.markIfAbsent(3));
+
+		verify(repository, times(1)).findUserIdsByDate(DAY);
+		verify(writer, times(1)).enqueue(new PendingMark(3, DAY, clock.now().toLocalTime()));
+	}
+
+	@Test
+	void startsAFreshDayAfterMidnight() {
+		assertTrue(service.markIfAbsent(3));
+
+		clock.advance(Duration.ofMinutes(1));
+		LocalDate nextDay = DAY.plusDays(1);
+
+		assertTrue(service.markIfAbsent(1));
+		assertFalse(service.markIfAbsent(2));
+		assertTrue(service.markIfAbsent(3));
+		assertFalse(service.markIfAbsent(3));
+
+		verify(repository, times(1)).findUserIdsByDate(nextDay);
+		verify(writer).enqueue(new PendingMark(1, nextDay, clock.now().toLocalTime()));
+	}
+
+	@Test
+	void marksEachUserOnceUnderContention() throws Exception {
+		int threads = 32;
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger marked = new AtomicInteger();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			Future<?>[] futures = new Future<?>[threads];
+			for (int i = 0; i < threads; i++) {
+				int userId = 100 + i % 4;
+				futures[i] = executor.submit(() -> {
+					start.await();
+					if (service.markIfAbsent(userId))
+						marked.incrementAndGet();
+					return null;
+				});
+			}
+			start.countDown();
+			for (Future<?> future : futures)
+				future.get();
+		}
+
+		assertEquals(4, marked.get());
+		verify(writer, times(4)).enqueue(any());
+	}
+
+	/** Fixed-offset clock the test moves forward by hand. */
+	private static final class MutableClock extends Clock {
+
+		private volatile Instant instant;
+
+		MutableClock(LocalDateTime start) {
+			instant = start.toInstant(ZoneOffset.UTC);
+		}
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		LocalDateTime now() {
+			return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.org.repository.AttendanceRepository;
+import com.org.service.AttendanceWriter.PendingMark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AttendanceWriterTests {
+
+	private static final LocalDate DAY = LocalDate.of(2026, 3, 14);
+
+	private final Clock clock = Clock.fixed(DAY.atTime(9, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+	@TempDir
+	Path dir;
+
+	private DriverManagerDataSource dataSource;
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:attendance-writer;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("drop all objects");
+	}
+
+	@Test
+	void replayedRowsAreMarkedInTheDayCache() throws Exception {
+		// First run: the table is missing, so the write fails and the row is spilled.
+		AttendanceWriter before = writer(cache());
+		before.enqueue(new PendingMark(7, DAY, LocalTime.of(8, 59)));
+		assertTrue(Files.exists(spillFile()));
+
+		// Restart: the cache warms before the lifecycle phase replays the spill file.
+		jdbcTemplate.execute("create table attendance (id bigint generated by default as identity primary key,"
+				+ " user_id int, date date, time time, unique (user_id, date))");
+		AttendanceDayCache cache = cache();
+		AttendanceWriter after = writer(cache);
+		after.start();
+		try {
+			assertFalse(Files.exists(spillFile()));
+			assertEquals(1, jdbcTemplate.queryForObject("select count(*) from attendance where user_id = 7",
+					Integer.class));
+			assertFalse(cache.tryMark(7, DAY), "replayed user should already be marked");
+			assertTrue(cache.tryMark(8, DAY));
+		} finally {
+			after.stop();
+		}
+	}
+
+	private Path spillFile() {
+		return dir.resolve("spill.csv");
+	}
+
+	private AttendanceDayCache cache() {
+		AttendanceRepository repository = mock(AttendanceRepository.class);
+		when(repository.findUserIdsByDate(any())).thenAnswer(call -> {
+			Integer tables = jdbcTemplate.queryForObject(
+					"select count(*) from information_schema.tables where table_name = 'ATTENDANCE'", Integer.class);
+			if (tables == 0)
+				return List.of();
+			return jdbcTemplate.queryForList("select user_id from attendance where date = ?", Integer.class,
+					call.getArgument(0, LocalDate.class));
+		});
+		AttendanceDayCache cache = new AttendanceDayCache();
+		ReflectionTestUtils.setField(cache, "attendanceRepository", repository);
+		ReflectionTestUtils.setField(cache, "clock", clock);
+		cache.init();
+		return cache;
+	}
+
+	private AttendanceWriter writer(AttendanceDayCache cache) {
+		AttendanceWriter writer = new AttendanceWriter();
+		ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(writer, "transactionTemplate",
+				new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+		ReflectionTestUtils.setField(writer, "faceMetrics", new FaceMetrics(new SimpleMeterRegistry()));
+		ReflectionTestUtils.setField(writer, "dayCache", cache);
+		ReflectionTestUtils.setField(writer, "batchSize", 100);
+		ReflectionTestUtils.setField(writer, "flushIntervalMillis", 50L);
+		ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+		ReflectionTestUtils.setField(writer, "spillPath", spillFile().toString());
+		writer.init();
+		return writer;
+	}
+}
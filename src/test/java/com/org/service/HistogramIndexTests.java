@@ -0,0 +1,149 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
+import java.util.Random;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.bytedeco.opencv.opencv_core.MatVector;
+import org.bytedeco.opencv.opencv_face.LBPHFaceRecognizer;
+import org.junit.jupiter.api.Test;
+
+import static org.bytedeco.opencv.global.opencv_core.CV_32SC1;
+import static org.bytedeco.opencv.global.opencv_core.CV_8UC1;
+
+class HistogramIndexTests {
+
+	private static final int LENGTH = 8 * 8 * 256;
+
+	/** The vector and scalar paths both sum in double and only differ in summation order. */
+	private static final double RELATIVE_TOLERANCE = 1e-12;
+
+	/** OpenCV's SIMD compareHist keeps part of the sum in float, which shows up around the 9th digit. */
+	private static final double OPENCV_RELATIVE_TOLERANCE = 1e-7;
+
+	@Test
+	void nearestMatchesLinearScan() {
+		Random random = new Random(42);
+		int count = 3000;
+		int[] labels = new int[count];
+		float[] histograms = new float[count * LENGTH];
+		for (int i = 0; i < count; i++) {
+			labels[i] = i % 50;
+			fillHistogram(random, histograms, i * LENGTH);
+		}
+		float[] query = new float[LENGTH];
+		fillHistogram(random, query, 0);
+
+		int expectedLabel = -1;
+		double expectedDistance = Double.MAX_VALUE;
+		for (int i = 0; i < count; i++) {
+			double dist = HistogramIndex.chiSquare(query, histograms, i * LENGTH, LENGTH);
+			if (dist < expectedDistance) {
+				expectedDistance = dist;
+				expectedLabel = labels[i];
+			}
+		}
+
+		HistogramIndex index = new HistogramIndex(labels, histograms, LENGTH);
+		HistogramIndex.Match match = index.nearest(query, Double.MAX_VALUE);
+		assertEquals(expectedLabel, match.label());
+		assertEquals(expectedDistance, match.distance(), expectedDistance * RELATIVE_TOLERANCE);
+	}
+
+	@Test
+	void topKReturnsDistinctLabelsNearestFirst() {
+		float[] histograms = new float[4 * LENGTH];
+		histograms[0] = 1f;
+		histograms[LENGTH + 1] = 1f;
+		histograms[2 * LENGTH] = 0.5f;
+		histograms[2 * LENGTH + 1] = 0.5f;
+		histograms[3 * LENGTH] = 0.9f;
+		HistogramIndex index = new HistogramIndex(new int[] { 7, 8, 9, 7 }, histograms, LENGTH);
+
+		float[] query = new float[LENGTH];
+		query[0] = 1f;
+		List<HistogramIndex.Match> matches = index.topK(query, 3);
+
+		assertEquals(List.of(7, 9, 8), matches.stream().map(HistogramIndex.Match::label).toList());
+		assertEquals(0.0, matches.get(0).distance(), 1e-9);
+		assertEquals(-1, index.nearest(query, 0.0).label());
+	}
+
+	@Test
+	void vectorDistanceMatchesScalarDistance() {
+		assumeTrue(HistogramIndex.VECTOR_ENABLED, "jdk.incubator.vector is not available");
+		Random random = new Random(7);
+		float[] query = new float[LENGTH];
+		float[] histogram = new float[LENGTH];
+		for (int i = 0; i < 100; i++) {
+			fillHistogram(random, query, 0);
+			fillHistogram(random, histogram, 0);
+			double scalar = HistogramIndex.chiSquare(query, histogram, 0, LENGTH);
+			double vector = VectorChiSquare.distance(query, histogram, 0, LENGTH);
+			assertEquals(scalar, vector, scalar * RELATIVE_TOLERANCE);
+		}
+	}
+
+	@Test
+	void nearestMatchesOpenCvPredictOnLargeGallery() {
+		// A 2x2 grid keeps 10k histograms small; the distance is computed the same way for any grid.
+		LBPHFaceRecognizer recognizer = LBPHFaceRecognizer.create(1, 8, 2, 2, Double.MAX_VALUE);
+		Random random = new Random(11);
+		int users = 500;
+		int count = 12_000;
+		byte[][] bases = new byte[users][];
+		for (int u = 0; u < users; u++) {
+			bases[u] = new byte[32 * 32];
+			random.nextBytes(bases[u]);
+		}
+
+		MatVector images = new MatVector(count);
+		Mat labels = new Mat(count, 1, CV_32SC1);
+		IntBuffer labelsBuf = labels.createBuffer();
+		for (int i = 0; i < count; i++) {
+			int user = i % users;
+			images.put(i, noisyImage(bases[user], random, 40));
+			labelsBuf.put(i, user + 1);
+		}
+		recognizer.train(images, labels);
+
+		LbphModel model = LbphModel.fromRecognizer(recognizer);
+		assertEquals(count, model.size());
+		LBPHFaceRecognizer extractor = model.newHistogramExtractor();
+		for (int q = 0; q < 50; q++) {
+			Mat query = noisyImage(bases[random.nextInt(users)], random, 40);
+			int[] expectedLabel = new int[1];
+			double[] expectedConfidence = new double[1];
+			recognizer.predict(query, expectedLabel, expectedConfidence);
+
+			int[] label = new int[1];
+			double[] confidence = new double[1];
+			model.predict(LbphModel.histogramOf(extractor, query), label, confidence);
+			assertEquals(expectedLabel[0], label[0]);
+			assertEquals(expectedConfidence[0], confidence[0], expectedConfidence[0] * OPENCV_RELATIVE_TOLERANCE);
+		}
+	}
+
+	private static Mat noisyImage(byte[] base, Random random, int amplitude) {
+		Mat image = new Mat(32, 32, CV_8UC1);
+		ByteBuffer pixels = image.createBuffer();
+		for (int p = 0; p < base.length; p++) {
+			int value = (base[p] & 0xff) + random.nextInt(2 * amplitude + 1) - amplitude;
+			pixels.put(p, (byte) Math.max(0, Math.min(255, value)));
+		}
+		return image;
+	}
+
+	private static void fillHistogram(Random random, float[] target, int offset) {
+		// Sparse like real LBP cells: most bins empty.
+		for (int j = 0; j < LENGTH; j++) {
+			target[offset + j] = random.nextInt(4) == 0 ? random.nextFloat() * 0.05f : 0f;
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class LbphModelTests {
+
+	private static final int LENGTH = 4;
+
+	@Test
+	void retrainingAUserTwiceKeepsTheSampleCountStable() {
+		LbphModel shard = model(new int[] { 1, 2, 1, 3 }, 0);
+		LbphModel fresh = model(new int[] { 2, 2, 2 }, 100);
+
+		LbphModel once = shard.replaceLabel(2, fresh);
+		LbphModel twice = once.replaceLabel(2, fresh);
+
+		assertEquals(6, once.size());
+		assertEquals(once.size(), twice.size());
+		assertArrayEquals(new int[] { 1, 1, 3, 2, 2, 2 }, twice.labels());
+		assertArrayEquals(once.histograms(), twice.histograms());
+		// The other users' histograms stay in place, the old ones of user 2 are gone.
+		assertArrayEquals(Arrays.copyOfRange(shard.histograms(), 0, LENGTH),
+				Arrays.copyOfRange(twice.histograms(), 0, LENGTH));
+		assertEquals(100f, twice.histograms()[3 * LENGTH]);
+	}
+
+	@Test
+	void replacingAnUnknownLabelAppends() {
+		LbphModel shard = model(new int[] { 1, 3 }, 0);
+
+		LbphModel updated = shard.replaceLabel(7, model(new int[] { 7 }, 50));
+
+		assertArrayEquals(new int[] { 1, 3, 7 }, updated.labels());
+	}
+
+	/** Sample i gets histogram values first + i*LENGTH, first + i*LENGTH + 1, ... */
+	private static LbphModel model(int[] labels, int first) {
+		float[] histograms = new float[labels.length * LENGTH];
+		for (int i = 0; i < histograms.length; i++)
+			histograms[i] = first + i;
+		return new LbphModel(1, 8, 2, 1, Double.MAX_VALUE, LENGTH, labels, histograms);
+	}
+}
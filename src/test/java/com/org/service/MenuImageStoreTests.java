@@ -0,0 +1,74 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.org.dto.MenuImage;
+
+class MenuImageStoreTests {
+
+	@TempDir
+	Path menuDir;
+
+	private MenuImageStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new MenuImageStore();
+		ReflectionTestUtils.setField(store, "menuDir", menuDir.toString());
+		ReflectionTestUtils.setField(store, "thumbnailSize", 16);
+	}
+
+	@Test
+	void namesContentByItsFormatNotTheClientsLabel() throws IOException {
+		byte[] png = png();
+
+		MenuImage first = store.store(new MockMultipartFile("menuImage", "menu.jpg", "image/jpeg", png), 1);
+		MenuImage second = store.store(new MockMultipartFile("menuImage", "menu", "application/octet-stream", png), 1);
+
+		assertTrue(first.imageName().endsWith(".png"));
+		assertEquals(first.imageName(), second.imageName());
+		assertFalse(first.deduplicated());
+		assertTrue(second.deduplicated());
+	}
+
+	@Test
+	void rejectsUnknownFormats() {
+		MockMultipartFile text = new MockMultipartFile("menuImage", "menu.png", "image/png", "hello".getBytes());
+		assertThrows(IOException.class, () -> store.store(text, 1));
+	}
+
+	@Test
+	void hashedImagesAreScopedToTheirOwners() throws IOException {
+		byte[] png = png();
+		String name = store.store(new MockMultipartFile("menuImage", "menu.png", "image/png", png), 1).imageName();
+
+		assertNotNull(store.find(1, name));
+		assertNull(store.find(2, name));
+		assertNull(store.findThumbnail(2, name));
+
+		// Uploading the same bytes makes the second user an owner of the shared object.
+		store.store(new MockMultipartFile("menuImage", "copy.png", "image/png", png), 2);
+		assertEquals(store.find(1, name), store.find(2, name));
+	}
+
+	private static byte[] png() throws IOException {
+		BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+		image.setRGB(3, 4, 0x336699);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,73 @@
+package com.org.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.org.model.UserProfile;
+
+class TrainingServiceTests {
+
+	@TempDir
+	Path trainingDir;
+
+	private UserDirectory userDirectory;
+	private TrainingService trainingService;
+
+	@BeforeEach
+	void setUp() {
+		userDirectory = mock(UserDirectory.class);
+		when(userDirectory.save(anyInt(), anyString(), anyString())).thenReturn(new UserProfile());
+		trainingService = new TrainingService();
+		ReflectionTestUtils.setField(trainingService, "userDirectory", userDirectory);
+		ReflectionTestUtils.setField(trainingService, "trainingDir", trainingDir.toString());
+	}
+
+	@Test
+	void changingGroupMovesTheUserFolder() throws IOException {
+		when(userDirectory.contains(4)).thenReturn(true);
+		when(userDirectory.groupOf(4)).thenReturn(UserDirectory.DEFAULT_GROUP);
+		Path image = Files.createDirectories(trainingDir.resolve("user4")).resolve("1.jpg");
+		Files.write(image, new byte[] { 1, 2, 3 });
+
+		trainingService.assignUser(4, "Four", "hq");
+
+		File moved = new File(trainingService.getGroupDir("hq"), "user4");
+		assertTrue(new File(moved, "1.jpg").isFile());
+		assertFalse(Files.exists(trainingDir.resolve("user4")));
+		verify(userDirectory).save(4, "Four", "hq");
+	}
+
+	@Test
+	void refusesToOverwriteAFolderInTheNewGroup() throws IOException {
+		when(userDirectory.contains(4)).thenReturn(true);
+		when(userDirectory.groupOf(4)).thenReturn(UserDirectory.DEFAULT_GROUP);
+		Files.createDirectories(trainingDir.resolve("user4"));
+		Files.createDirectories(trainingService.getGroupDir("hq").toPath().resolve("user4"));
+
+		assertThrows(IOException.class, () -> trainingService.assignUser(4, "Four", "hq"));
+		assertTrue(Files.isDirectory(trainingDir.resolve("user4")));
+		verify(userDirectory, never()).save(anyInt(), anyString(), anyString());
+	}
+
+	@Test
+	void restoresTheFolderWhenTheDirectoryUpdateFails() throws IOException {
+		when(userDirectory.contains(4)).thenReturn(true);
+		when(userDirectory.groupOf(4)).thenReturn(UserDirectory.DEFAULT_GROUP);
+		when(userDirectory.save(4, "Four", "hq")).thenThrow(new IllegalStateException("database down"));
+		Files.createDirectories(trainingDir.resolve("user4"));
+
+		assertThrows(IllegalStateException.class, () -> trainingService.assignUser(4, "Four", "hq"));
+		assertTrue(Files.isDirectory(trainingDir.resolve("user4")));
+		assertFalse(new File(trainingService.getGroupDir("hq"), "user4").exists());
+	}
+}